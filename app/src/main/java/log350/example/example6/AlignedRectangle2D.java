@@ -16,20 +16,23 @@ public class AlignedRectangle2D {
 	public void clear() { isEmpty = true; }
 
 	// Enlarge the rectangle as necessary to contain the given point
-	public void bound( Point2D p ) {
+	public void bound( float x, float y ) {
 		if ( isEmpty ) {
-			min.copy(p);
-			max.copy(p);
+			min.copy(x,y);
+			max.copy(x,y);
 			isEmpty = false;
 		}
 		else {
-			if ( p.x() < min.x() ) min.p[0] = p.x();
-			else if ( p.x() > max.x() ) max.p[0] = p.x();
+			if ( x < min.x() ) min.p[0] = x;
+			else if ( x > max.x() ) max.p[0] = x;
 
-			if ( p.y() < min.y() ) min.p[1] = p.y();
-			else if ( p.y() > max.y() ) max.p[1] = p.y();
+			if ( y < min.y() ) min.p[1] = y;
+			else if ( y > max.y() ) max.p[1] = y;
 		}
 	}
+	public void bound( Point2D p ) {
+		bound( p.x(), p.y() );
+	}
 
 	// Enlarge the rectangle as necessary to contain the given rectangle
 	public void bound( AlignedRectangle2D rect ) {
@@ -39,6 +42,11 @@ public class AlignedRectangle2D {
 
 	public boolean isEmpty() { return isEmpty; }
 
+	public void translate( float dx, float dy ) {
+		min.p[0] += dx; min.p[1] += dy;
+		max.p[0] += dx; max.p[1] += dy;
+	}
+
 	public boolean contains( Point2D p ) {
 		return !isEmpty
 			&& min.x() <= p.x() && p.x() <= max.x()
@@ -51,6 +59,12 @@ public class AlignedRectangle2D {
 			&& min.y() <= r.min.y() && r.max.y() <= max.y();
 	}
 
+	public boolean intersects( AlignedRectangle2D r ) {
+		if ( isEmpty || r.isEmpty ) return false;
+		return min.x() <= r.max.x() && r.min.x() <= max.x()
+			&& min.y() <= r.max.y() && r.min.y() <= max.y();
+	}
+
 	public Point2D getMin() { return min; }
 	public Point2D getMax() { return max; }
 	public Vector2D getDiagonal() { return Point2D.diff(max,min); }
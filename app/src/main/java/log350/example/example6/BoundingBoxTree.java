@@ -0,0 +1,455 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+
+
+// A dynamic bounding volume hierarchy (a binary R-tree,
+// in the style of the "dynamic AABB tree" used by many 2D physics engines)
+// over the bounding rectangles of shapes.
+//
+// Each leaf stores one shape, along with the shape's bounding rectangle
+// and a slightly enlarged ("fat") copy of it.
+// The fat rectangles determine the structure of the tree,
+// so that small displacements of a shape do not require the tree to be restructured;
+// the exact rectangles are used for queries.
+// Each internal node stores the union of the rectangles of its two children,
+// so the root always knows the exact bounds of all shapes.
+// The tree is kept balanced with rotations, so its height stays in O(log n).
+class BoundingBoxTree {
+
+	static class Node {
+		// For leaves, these are the bounds of the shape.
+		// For internal nodes, these are the union of the bounds of the children.
+		float minX, minY, maxX, maxY;
+		// Same as above, but using the fat bounds of the leaves.
+		float fatMinX, fatMinY, fatMaxX, fatMaxY;
+
+		Node parent = null;
+		Node child1 = null, child2 = null;
+		int height = 0; // zero for leaves
+
+		Shape shape = null; // only used by leaves
+
+		boolean isLeaf() { return child1 == null; }
+
+		boolean contains( float x, float y ) {
+			return minX <= x && x <= maxX && minY <= y && y <= maxY;
+		}
+
+		boolean intersects( float x0, float y0, float x1, float y1 ) {
+			return minX <= x1 && x0 <= maxX && minY <= y1 && y0 <= maxY;
+		}
+
+		boolean isInside( float x0, float y0, float x1, float y1 ) {
+			return x0 <= minX && maxX <= x1 && y0 <= minY && maxY <= y1;
+		}
+	}
+
+	// The fat bounds of a leaf are enlarged on each side
+	// by this fraction of the largest dimension of the shape's bounds.
+	static final float FAT_MARGIN_FRACTION = 0.1f;
+
+	private Node root = null;
+	private int numLeaves = 0;
+
+	// Stack used to traverse the tree without recursion or allocation.
+	private Node [] stack = new Node[ 64 ];
+
+	public int getNumLeaves() { return numLeaves; }
+	public int getHeight() { return root == null ? 0 : root.height; }
+
+	// Stores, in the given rectangle, the bounds of all shapes in the tree.
+	public void getBounds( AlignedRectangle2D rect ) {
+		rect.clear();
+		if ( root == null )
+			return;
+		rect.bound( root.minX, root.minY );
+		rect.bound( root.maxX, root.maxY );
+	}
+
+	// Inserts the given shape, whose bounding rectangle is given, and returns its leaf.
+	public Node insert( Shape shape, AlignedRectangle2D bounds ) {
+		Node leaf = new Node();
+		leaf.shape = shape;
+		setBounds( leaf, bounds );
+		setFatBounds( leaf, bounds );
+		insertLeaf( leaf, null );
+		++ numLeaves;
+		return leaf;
+	}
+
+	// Inserts the given shapes, using their current bounding rectangles,
+	// and returns their leaves, in the same order.
+	// If the tree is empty, it is built all at once, top-down, by recursively splitting the shapes
+	// at the median of their centers along the longer side of their extent,
+	// which takes O(n log n) and is much faster than inserting the shapes one at a time.
+	// Otherwise, the shapes are inserted one at a time.
+	public Node [] insertAll( ArrayList< Shape > shapes ) {
+		int n = shapes.size();
+		Node [] leaves = new Node[ n ];
+		if ( root != null || n == 0 ) {
+			for ( int i = 0; i < n; ++i )
+				leaves[ i ] = insert( shapes.get( i ), shapes.get( i ).getBoundingRectangle() );
+			return leaves;
+		}
+		for ( int i = 0; i < n; ++i ) {
+			Node leaf = new Node();
+			leaf.shape = shapes.get( i );
+			AlignedRectangle2D bounds = leaf.shape.getBoundingRectangle();
+			setBounds( leaf, bounds );
+			setFatBounds( leaf, bounds );
+			leaves[ i ] = leaf;
+		}
+		// the build reorders the leaves, so it works on a copy
+		Node [] nodes = new Node[ n ];
+		System.arraycopy( leaves, 0, nodes, 0, n );
+		root = build( nodes, 0, n );
+		root.parent = null;
+		numLeaves = n;
+		return leaves;
+	}
+
+	// Returns the root of a balanced subtree over the given range of leaves, which it reorders.
+	private static Node build( Node [] leaves, int from, int to ) {
+		if ( to - from == 1 )
+			return leaves[ from ];
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for ( int i = from; i < to; ++i ) {
+			Node leaf = leaves[ i ];
+			float x = leaf.minX + leaf.maxX, y = leaf.minY + leaf.maxY; // twice the center
+			if ( x < minX ) minX = x;
+			if ( x > maxX ) maxX = x;
+			if ( y < minY ) minY = y;
+			if ( y > maxY ) maxY = y;
+		}
+		int middle = ( from + to ) >>> 1;
+		selectByCenter( leaves, from, to, middle, maxX - minX >= maxY - minY );
+		Node n = new Node();
+		n.child1 = build( leaves, from, middle );
+		n.child2 = build( leaves, middle, to );
+		n.child1.parent = n;
+		n.child2.parent = n;
+		refit( n );
+		return n;
+	}
+
+	private static float getCenter( Node leaf, boolean alongX ) {
+		return alongX ? leaf.minX + leaf.maxX : leaf.minY + leaf.maxY;
+	}
+
+	// Reorders the given range of leaves so that the leaf at index k is the one that would be there
+	// if the range were sorted by center, with no leaf before it having a larger center,
+	// and no leaf after it having a smaller one (quickselect).
+	private static void selectByCenter( Node [] leaves, int from, int to, int k, boolean alongX ) {
+		int lo = from, hi = to - 1;
+		while ( lo < hi ) {
+			float pivot = getCenter( leaves[ ( lo + hi ) >>> 1 ], alongX );
+			int i = lo, j = hi;
+			while ( i <= j ) {
+				while ( getCenter( leaves[ i ], alongX ) < pivot ) ++ i;
+				while ( getCenter( leaves[ j ], alongX ) > pivot ) -- j;
+				if ( i <= j ) {
+					Node tmp = leaves[ i ];
+					leaves[ i ] = leaves[ j ];
+					leaves[ j ] = tmp;
+					++ i;
+					-- j;
+				}
+			}
+			if ( k <= j )
+				hi = j;
+			else if ( k >= i )
+				lo = i;
+			else
+				return;
+		}
+	}
+
+	public void remove( Node leaf ) {
+		removeLeaf( leaf );
+		leaf.parent = null;
+		-- numLeaves;
+	}
+
+	// Must be called when the bounding rectangle of a leaf's shape has changed.
+	// Returns true if the tree had to be restructured,
+	// which only happens when the new bounds are no longer within the fat bounds of the leaf.
+	// Otherwise, only the exact bounds of the leaf's ancestors are updated, in O(log n).
+	public boolean update( Node leaf, AlignedRectangle2D bounds ) {
+		setBounds( leaf, bounds );
+		if (
+			leaf.fatMinX <= leaf.minX && leaf.maxX <= leaf.fatMaxX
+			&& leaf.fatMinY <= leaf.minY && leaf.maxY <= leaf.fatMaxY
+		) {
+			for ( Node n = leaf.parent; n != null; n = n.parent )
+				refit( n );
+			return false;
+		}
+		// The internal node freed by the removal is reused by the insertion,
+		// so that moving a shape around does not allocate.
+		Node spare = removeLeaf( leaf );
+		setFatBounds( leaf, bounds );
+		insertLeaf( leaf, spare );
+		return true;
+	}
+
+	// Appends, to the given list, every shape whose bounds contain the given point.
+	// The caller must still check whether each shape really contains the point.
+	public void queryPoint( float x, float y, ArrayList< Shape > result ) {
+		if ( root == null )
+			return;
+		int top = 0;
+		stack[ top++ ] = root;
+		while ( top > 0 ) {
+			Node n = stack[ --top ];
+			if ( ! n.contains( x, y ) )
+				continue;
+			if ( n.isLeaf() ) {
+				result.add( n.shape );
+			}
+			else {
+				if ( top + 2 > stack.length )
+					growStack();
+				stack[ top++ ] = n.child1;
+				stack[ top++ ] = n.child2;
+			}
+		}
+	}
+
+	// Appends, to the given list, every shape whose bounds intersect the given rectangle.
+	public void queryIntersecting( float minX, float minY, float maxX, float maxY, ArrayList< Shape > result ) {
+		if ( root == null )
+			return;
+		int top = 0;
+		stack[ top++ ] = root;
+		while ( top > 0 ) {
+			Node n = stack[ --top ];
+			if ( ! n.intersects( minX, minY, maxX, maxY ) )
+				continue;
+			if ( n.isLeaf() ) {
+				result.add( n.shape );
+			}
+			else {
+				if ( top + 2 > stack.length )
+					growStack();
+				stack[ top++ ] = n.child1;
+				stack[ top++ ] = n.child2;
+			}
+		}
+	}
+
+	// Appends, to the given list, every shape whose bounds are entirely inside the given rectangle.
+	public void queryContainedIn( float minX, float minY, float maxX, float maxY, ArrayList< Shape > result ) {
+		if ( root == null )
+			return;
+		int top = 0;
+		stack[ top++ ] = root;
+		while ( top > 0 ) {
+			Node n = stack[ --top ];
+			if ( ! n.intersects( minX, minY, maxX, maxY ) )
+				continue;
+			if ( n.isLeaf() ) {
+				if ( n.isInside( minX, minY, maxX, maxY ) )
+					result.add( n.shape );
+			}
+			else {
+				if ( top + 2 > stack.length )
+					growStack();
+				stack[ top++ ] = n.child1;
+				stack[ top++ ] = n.child2;
+			}
+		}
+	}
+
+	private void growStack() {
+		Node [] newStack = new Node[ stack.length * 2 ];
+		System.arraycopy( stack, 0, newStack, 0, stack.length );
+		stack = newStack;
+	}
+
+	private static void setBounds( Node leaf, AlignedRectangle2D bounds ) {
+		Point2D min = bounds.getMin();
+		Point2D max = bounds.getMax();
+		leaf.minX = min.x();
+		leaf.minY = min.y();
+		leaf.maxX = max.x();
+		leaf.maxY = max.y();
+	}
+
+	private static void setFatBounds( Node leaf, AlignedRectangle2D bounds ) {
+		Point2D min = bounds.getMin();
+		Point2D max = bounds.getMax();
+		float margin = FAT_MARGIN_FRACTION * Math.max( max.x() - min.x(), max.y() - min.y() );
+		leaf.fatMinX = min.x() - margin;
+		leaf.fatMinY = min.y() - margin;
+		leaf.fatMaxX = max.x() + margin;
+		leaf.fatMaxY = max.y() + margin;
+	}
+
+	// In 2D, the perimeter plays the role that surface area plays in 3D
+	// when estimating the cost of a bounding volume hierarchy.
+	private static float perimeter( float minX, float minY, float maxX, float maxY ) {
+		return 2 * ( ( maxX - minX ) + ( maxY - minY ) );
+	}
+	private static float perimeter( Node n ) {
+		return perimeter( n.fatMinX, n.fatMinY, n.fatMaxX, n.fatMaxY );
+	}
+	private static float perimeterOfUnion( Node a, Node b ) {
+		return perimeter(
+			Math.min( a.fatMinX, b.fatMinX ), Math.min( a.fatMinY, b.fatMinY ),
+			Math.max( a.fatMaxX, b.fatMaxX ), Math.max( a.fatMaxY, b.fatMaxY )
+		);
+	}
+
+	// Recomputes the height and both sets of bounds of an internal node from its children.
+	private static void refit( Node n ) {
+		Node a = n.child1;
+		Node b = n.child2;
+		n.height = 1 + Math.max( a.height, b.height );
+		n.minX = Math.min( a.minX, b.minX );
+		n.minY = Math.min( a.minY, b.minY );
+		n.maxX = Math.max( a.maxX, b.maxX );
+		n.maxY = Math.max( a.maxY, b.maxY );
+		n.fatMinX = Math.min( a.fatMinX, b.fatMinX );
+		n.fatMinY = Math.min( a.fatMinY, b.fatMinY );
+		n.fatMaxX = Math.max( a.fatMaxX, b.fatMaxX );
+		n.fatMaxY = Math.max( a.fatMaxY, b.fatMaxY );
+	}
+
+	private void replaceChild( Node parent, Node oldChild, Node newChild ) {
+		if ( parent == null )
+			root = newChild;
+		else if ( parent.child1 == oldChild )
+			parent.child1 = newChild;
+		else
+			parent.child2 = newChild;
+		newChild.parent = parent;
+	}
+
+	// If it is not null, the given spare node is used as the new internal node.
+	private void insertLeaf( Node leaf, Node spare ) {
+		if ( root == null ) {
+			root = leaf;
+			leaf.parent = null;
+			return;
+		}
+
+		// Descend the tree, looking for the sibling that minimizes
+		// the increase in total perimeter caused by the insertion.
+		Node n = root;
+		while ( ! n.isLeaf() ) {
+			float combinedPerimeter = perimeterOfUnion( n, leaf );
+			// cost of creating a new parent for this node and the new leaf
+			float cost = 2 * combinedPerimeter;
+			// minimum cost of pushing the leaf further down the tree
+			float inheritanceCost = 2 * ( combinedPerimeter - perimeter( n ) );
+
+			float cost1 = descendCost( n.child1, leaf ) + inheritanceCost;
+			float cost2 = descendCost( n.child2, leaf ) + inheritanceCost;
+			if ( cost < cost1 && cost < cost2 )
+				break;
+			n = ( cost1 < cost2 ) ? n.child1 : n.child2;
+		}
+		Node sibling = n;
+
+		Node oldParent = sibling.parent;
+		Node newParent = ( spare != null ) ? spare : new Node();
+		replaceChild( oldParent, sibling, newParent );
+		newParent.child1 = sibling;
+		newParent.child2 = leaf;
+		newParent.height = sibling.height + 1;
+		sibling.parent = newParent;
+		leaf.parent = newParent;
+
+		fixUpwardsFrom( newParent );
+	}
+
+	private static float descendCost( Node child, Node leaf ) {
+		if ( child.isLeaf() )
+			return perimeterOfUnion( child, leaf );
+		return perimeterOfUnion( child, leaf ) - perimeter( child );
+	}
+
+	// Returns the internal node that was removed along with the leaf, or null if there was none.
+	private Node removeLeaf( Node leaf ) {
+		if ( leaf == root ) {
+			root = null;
+			return null;
+		}
+		Node parent = leaf.parent;
+		Node grandParent = parent.parent;
+		Node sibling = ( parent.child1 == leaf ) ? parent.child2 : parent.child1;
+
+		replaceChild( grandParent, parent, sibling );
+		if ( grandParent != null )
+			fixUpwardsFrom( grandParent );
+
+		parent.parent = parent.child1 = parent.child2 = null;
+		return parent;
+	}
+
+	// Walks from the given node up to the root, rebalancing and refitting each node.
+	private void fixUpwardsFrom( Node n ) {
+		while ( n != null ) {
+			n = balance( n );
+			refit( n );
+			n = n.parent;
+		}
+	}
+
+	// If the subtree rooted at A is unbalanced, performs a rotation
+	// and returns the new root of the subtree; otherwise returns A.
+	private Node balance( Node A ) {
+		if ( A.isLeaf() || A.height < 2 )
+			return A;
+
+		Node B = A.child1;
+		Node C = A.child2;
+		int balance = C.height - B.height;
+
+		if ( balance > 1 ) {
+			// Rotate C up
+			Node F = C.child1;
+			Node G = C.child2;
+			replaceChild( A.parent, A, C );
+			C.child1 = A;
+			A.parent = C;
+			if ( F.height > G.height ) {
+				C.child2 = F;
+				A.child2 = G;
+				G.parent = A;
+			}
+			else {
+				C.child2 = G;
+				A.child2 = F;
+				F.parent = A;
+			}
+			refit( A );
+			refit( C );
+			return C;
+		}
+		if ( balance < -1 ) {
+			// Rotate B up
+			Node D = B.child1;
+			Node E = B.child2;
+			replaceChild( A.parent, A, B );
+			B.child1 = A;
+			A.parent = B;
+			if ( D.height > E.height ) {
+				B.child2 = D;
+				A.child1 = E;
+				E.parent = A;
+			}
+			else {
+				B.child2 = E;
+				A.child1 = D;
+				D.parent = A;
+			}
+			refit( A );
+			refit( B );
+			return B;
+		}
+		return A;
+	}
+}
@@ -0,0 +1,197 @@
+package log350.example.example6;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+
+
+// Draws on an android.graphics.Canvas.
+// set() must be called with the view's canvas at the start of every frame.
+class CanvasSurface implements DrawingSurface {
+
+	private Paint paint = null;
+	private Canvas canvas = null;
+	// The matrix of the canvas when it was passed to set(), which maps pixels to the view.
+	private Matrix originalMatrix = null;
+	private int width = 0, height = 0;
+
+	private Rect rect = new Rect();
+	private Path path = new Path();
+	// Reused by concat().
+	private Matrix matrix = new Matrix();
+	private float [] matrixValues = new float[ 9 ];
+
+	public void set( Paint p, Canvas c ) {
+		paint = p;
+		canvas = c;
+		originalMatrix = c.getMatrix();
+		width = c.getWidth();
+		height = c.getHeight();
+	}
+
+	public int getWidth() { return width; }
+	public int getHeight() { return height; }
+
+	public void setTransformToIdentity() {
+		canvas.setMatrix( originalMatrix );
+	}
+
+	public void translate( float dx, float dy ) {
+		canvas.translate( dx, dy );
+	}
+
+	public void scale( float s ) {
+		canvas.scale( s, s );
+	}
+
+	public void concat( Transform2D t ) {
+		t.getValues( matrixValues );
+		matrix.setValues( matrixValues );
+		canvas.concat( matrix );
+	}
+
+	public void save() {
+		canvas.save();
+	}
+
+	public void restore() {
+		canvas.restore();
+	}
+
+	public void setColor( float r, float g, float b, float alpha ) {
+		paint.setARGB( (int)(alpha*255), (int)(r*255), (int)(g*255), (int)(b*255) );
+	}
+
+	public void setLineWidth( float width ) {
+		paint.setStrokeWidth( width );
+	}
+
+	public void setFontHeight( int height ) {
+		paint.setTextSize( height );
+	}
+
+	public void clear( float r, float g, float b ) {
+		canvas.drawRGB( (int)(r*255), (int)(g*255), (int)(b*255) );
+	}
+
+	public void drawLine( float x1, float y1, float x2, float y2 ) {
+		canvas.drawLine( x1, y1, x2, y2, paint );
+	}
+
+	public void drawPolyline( float [] coordinates, int numPoints, boolean isClosed, boolean isFilled ) {
+		if ( numPoints <= 1 )
+			return;
+
+		path.reset();
+		path.moveTo( coordinates[0], coordinates[1] );
+		for ( int i = 1; i < numPoints; ++i ) {
+			path.lineTo( coordinates[ 2*i ], coordinates[ 2*i+1 ] );
+		}
+		if ( isClosed )
+			path.close();
+		paint.setStyle( isFilled ? Paint.Style.FILL : Paint.Style.STROKE );
+		// TODO FIXME XXX or should i call path.setFillType() ?
+		canvas.drawPath( path, paint );
+	}
+
+	// Since the path is in the same units as the points, and the current coordinate system
+	// is applied through the canvas matrix, panning and zooming do not require rebuilding it.
+	public boolean fillPolygon( float [] coordinates, int numPoints, RetainedGeometry retained, int version ) {
+		if ( numPoints <= 1 )
+			return false;
+
+		boolean isRebuilt = false;
+		Path retainedPath = ( retained.handle instanceof Path ) ? (Path)retained.handle : null;
+		if ( retainedPath == null || retained.version != version ) {
+			if ( retainedPath == null ) {
+				retainedPath = new Path();
+				retained.handle = retainedPath;
+			}
+			else {
+				// unlike reset(), this keeps the memory allocated for the previous points
+				retainedPath.rewind();
+			}
+			retainedPath.moveTo( coordinates[0], coordinates[1] );
+			for ( int i = 1; i < numPoints; ++i ) {
+				retainedPath.lineTo( coordinates[ 2*i ], coordinates[ 2*i+1 ] );
+			}
+			retainedPath.close();
+			retained.version = version;
+			isRebuilt = true;
+		}
+		paint.setStyle( Paint.Style.FILL );
+		canvas.drawPath( retainedPath, paint );
+		return isRebuilt;
+	}
+
+	public void drawRect( float x, float y, float w, float h, boolean isFilled ) {
+		paint.setStyle( isFilled ? Paint.Style.FILL : Paint.Style.STROKE );
+		canvas.drawRect( x, y, x+w, y+h, paint );
+	}
+
+	public void drawCircle( float x, float y, float radius, boolean isFilled ) {
+		paint.setStyle( isFilled ? Paint.Style.FILL : Paint.Style.STROKE );
+		canvas.drawCircle( x, y, radius, paint );
+	}
+
+	public float stringWidth( String s ) {
+		if ( s == null || s.length() == 0 ) return 0;
+
+		paint.getTextBounds( s, 0, s.length(), rect );
+		return rect.width();
+	}
+
+	public void drawString( float x, float y, String s ) {
+		if ( s == null || s.length() == 0 ) return;
+		paint.setStyle( Paint.Style.FILL );
+		canvas.drawText( s, x, y, paint );
+	}
+
+	private Bitmap layerBitmap = null;
+	private Canvas layerCanvas = null;
+	// The canvas and matrix to restore when endLayer() is called.
+	private Canvas mainCanvas = null;
+	private Matrix mainOriginalMatrix = null;
+
+	public void beginLayer() {
+		if ( layerBitmap == null || layerBitmap.getWidth() != width || layerBitmap.getHeight() != height ) {
+			if ( layerBitmap != null )
+				layerBitmap.recycle();
+			layerBitmap = Bitmap.createBitmap( width, height, Bitmap.Config.ARGB_8888 );
+			layerCanvas = new Canvas( layerBitmap );
+		}
+		layerBitmap.eraseColor( 0 ); // transparent
+		mainCanvas = canvas;
+		mainOriginalMatrix = originalMatrix;
+		canvas = layerCanvas;
+		originalMatrix = layerCanvas.getMatrix();
+		setTransformToIdentity();
+	}
+
+	public void endLayer() {
+		canvas = mainCanvas;
+		originalMatrix = mainOriginalMatrix;
+		mainCanvas = null;
+		mainOriginalMatrix = null;
+		setTransformToIdentity();
+	}
+
+	public void drawLayer() {
+		if ( layerBitmap == null )
+			return;
+		canvas.save();
+		canvas.setMatrix( originalMatrix );
+		canvas.drawBitmap( layerBitmap, 0, 0, null );
+		canvas.restore();
+	}
+
+	public void releaseLayer() {
+		if ( layerBitmap != null )
+			layerBitmap.recycle();
+		layerBitmap = null;
+		layerCanvas = null;
+	}
+}
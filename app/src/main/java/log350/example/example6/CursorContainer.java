@@ -0,0 +1,206 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+
+
+// This stores a set of instances of MyCursor.
+// Each cursor can be identified by its id,
+// which is assigned by the framework or computing platform.
+// Each cursor can also be identified by its index in this class's container.
+// For example, if an instance of this class is storing 3 cursors,
+// their ids may be 2, 18, 7,
+// but their indices should be 0, 1, 2.
+// Cursors are kept in the order in which they were added,
+// so the index of a cursor only changes when a cursor before it is removed.
+//
+// Since every touch event looks up cursors by id, and the modes often look up cursors by type,
+// both lookups are done without scanning the cursors:
+// ids are mapped to cursors with a small hash table of primitive ints,
+// and a list of the cursors of each type is kept up to date as cursors change type.
+class CursorContainer {
+	private ArrayList< MyCursor > cursors = new ArrayList< MyCursor >();
+
+	// Maps the id of each cursor to the cursor, using open addressing with linear probing
+	// (so that ids do not need to be boxed into Integer objects).
+	// The capacity is a power of two, and at least twice the number of cursors.
+	private int [] tableIds = new int[ 16 ];
+	private MyCursor [] tableCursors = new MyCursor[ 16 ]; // null for empty slots
+
+	// For each type, the cursors of that type, in the same order as in the cursors list.
+	private ArrayList< ArrayList< MyCursor > > cursorsByType = new ArrayList< ArrayList< MyCursor > >();
+
+	public CursorContainer() {
+		for ( int type = 0; type < MyCursor.NUM_TYPES; ++type )
+			cursorsByType.add( new ArrayList< MyCursor >() );
+	}
+
+	public int getNumCursors() { return cursors.size(); }
+	public MyCursor getCursorByIndex( int index ) { return cursors.get( index ); }
+
+	public int findIndexOfCursorById( int id ) {
+		MyCursor c = getCursorById( id );
+		return ( c == null ) ? -1 : c.indexInContainer;
+	}
+	public MyCursor getCursorById( int id ) {
+		return tableCursors[ findSlot( id ) ];
+	}
+
+	// Returns the number of cursors that are of the given type.
+	public int getNumCursorsOfGivenType( int type ) {
+		return cursorsByType.get( type ).size();
+	}
+
+	// Returns the (i)th cursor of the given type,
+	// or null if no such cursor exists.
+	// Can be used for retrieving both cursors of type TYPE_DRAGGING, for example,
+	// by calling getCursorByType( MyCursor.TYPE_DRAGGING, 0 )
+	// and getCursorByType( MyCursor.TYPE_DRAGGING, 1 ),
+	// when there may be cursors of other type present at the same time.
+	public MyCursor getCursorByType( int type, int i ) {
+		ArrayList< MyCursor > list = cursorsByType.get( type );
+		return ( i < list.size() ) ? list.get( i ) : null;
+	}
+
+	public ArrayList<Point2D> getPositionsOfCursorsOfType(int type){
+
+		ArrayList<Point2D> crs = new ArrayList<Point2D>();
+
+		for(MyCursor c : cursorsByType.get(type)){
+			crs.add(c.getCurrentPosition());
+		}
+
+		return crs;
+	}
+
+	// Returns index of updated cursor.
+	// If a cursor with the given id does not already exist, a new cursor for it is created.
+	public int updateCursorById(
+		int id,
+		float x, float y
+	) {
+		int slot = findSlot( id );
+		MyCursor c = tableCursors[ slot ];
+		if ( c == null ) {
+			c = new MyCursor( id, x, y );
+			c.indexInContainer = cursors.size();
+			c.container = this;
+			cursors.add( c );
+			cursorsByType.get( c.getType() ).add( c );
+			tableIds[ slot ] = id;
+			tableCursors[ slot ] = c;
+			if ( 2 * cursors.size() > tableCursors.length )
+				growTable();
+			return c.indexInContainer;
+		}
+		Point2D currentPosition = c.getCurrentPosition();
+		if ( currentPosition.x() != x || currentPosition.y() != y ) {
+			c.addPosition( x, y );
+		}
+		return c.indexInContainer;
+	}
+	// Calls beginBatch() on every cursor.
+	public void beginBatch() {
+		for ( int i = 0; i < cursors.size(); ++i )
+			cursors.get( i ).beginBatch();
+	}
+
+	// Adds to the cursors all the positions in the given batch,
+	// creating cursors for pointers that do not yet have one.
+	// Returns the number of positions that were added.
+	public int applyBatch( TouchBatch batch ) {
+		int numAdded = 0;
+		for ( int p = 0; p < batch.getNumPointers(); ++p ) {
+			int id = batch.getPointerId( p );
+			for ( int s = 0; s < batch.getNumSamples(); ++s ) {
+				updateCursorById( id, batch.getX( s, p ), batch.getY( s, p ) );
+				++ numAdded;
+			}
+		}
+		return numAdded;
+	}
+
+	public void removeCursorByIndex( int index ) {
+		MyCursor c = cursors.remove( index );
+		for ( int i = index; i < cursors.size(); ++i )
+			cursors.get( i ).indexInContainer = i;
+		cursorsByType.get( c.getType() ).remove( c );
+		removeFromTable( c.id );
+		c.container = null;
+	}
+
+	public void removeAllCursors(){
+
+		for ( MyCursor c : cursors )
+			c.container = null;
+		cursors.clear();
+		for ( ArrayList< MyCursor > list : cursorsByType )
+			list.clear();
+		for ( int i = 0; i < tableCursors.length; ++i )
+			tableCursors[ i ] = null;
+
+	}
+
+	// Called by a cursor of this container when its type changes.
+	void cursorTypeChanged( MyCursor c, int oldType ) {
+		cursorsByType.get( oldType ).remove( c );
+		// Insert the cursor so that the list stays in the same order as the cursors list.
+		ArrayList< MyCursor > list = cursorsByType.get( c.getType() );
+		int i = list.size();
+		while ( i > 0 && list.get( i-1 ).indexInContainer > c.indexInContainer )
+			-- i;
+		list.add( i, c );
+	}
+
+	private static int hash( int id ) {
+		int h = id * 0x9E3779B9;
+		return h ^ ( h >>> 16 );
+	}
+
+	// Returns the slot of the table containing the given id,
+	// or the empty slot where it would be inserted.
+	private int findSlot( int id ) {
+		int mask = tableCursors.length - 1;
+		int slot = hash( id ) & mask;
+		while ( tableCursors[ slot ] != null && tableIds[ slot ] != id )
+			slot = ( slot + 1 ) & mask;
+		return slot;
+	}
+
+	private void growTable() {
+		int [] oldIds = tableIds;
+		MyCursor [] oldCursors = tableCursors;
+		tableIds = new int[ 2 * oldIds.length ];
+		tableCursors = new MyCursor[ 2 * oldCursors.length ];
+		for ( int i = 0; i < oldCursors.length; ++i ) {
+			if ( oldCursors[ i ] != null ) {
+				int slot = findSlot( oldIds[ i ] );
+				tableIds[ slot ] = oldIds[ i ];
+				tableCursors[ slot ] = oldCursors[ i ];
+			}
+		}
+	}
+
+	private void removeFromTable( int id ) {
+		int mask = tableCursors.length - 1;
+		int slot = findSlot( id );
+		if ( tableCursors[ slot ] == null )
+			return;
+		tableCursors[ slot ] = null;
+		// Move back any following entries that could no longer be found
+		// because of the empty slot, so that the probing sequences stay unbroken.
+		int next = ( slot + 1 ) & mask;
+		while ( tableCursors[ next ] != null ) {
+			int home = hash( tableIds[ next ] ) & mask;
+			// The entry can move to the empty slot if its home slot is not
+			// (cyclically) between the empty slot and its current slot.
+			boolean canMove = ( slot <= next ) ? ( home <= slot || home > next ) : ( home <= slot && home > next );
+			if ( canMove ) {
+				tableIds[ slot ] = tableIds[ next ];
+				tableCursors[ slot ] = tableCursors[ next ];
+				tableCursors[ next ] = null;
+				slot = next;
+			}
+			next = ( next + 1 ) & mask;
+		}
+	}
+}
@@ -0,0 +1,532 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+
+
+// The state of the application (the scene, the camera, the fingers, and the current mode),
+// along with what it does when fingers touch the screen and when a frame is drawn.
+//
+// This does not depend on Android: DrawingView passes it the touch events it receives,
+// as TouchBatch instances, and the canvas to draw on, as a CanvasSurface.
+// So it can also be driven and timed on a plain Java virtual machine, drawing on a RecordingSurface.
+class DrawingController {
+
+	GraphicsWrapper gw = new GraphicsWrapper();
+
+	ShapeContainer shapeContainer = new ShapeContainer();
+	ArrayList< Shape > selectedShapes = new ArrayList< Shape >();
+	SelectionHull selectionHull = new SelectionHull(); // polygon drawn around the selectedShapes
+	ShapeGroup selectionGroup = new ShapeGroup(); // active while the selectedShapes are being manipulated
+	CursorContainer cursorContainer = new CursorContainer();
+
+	static final int MODE_NEUTRAL = 0; // the default mode
+	static final int MODE_CAMERA_MANIPULATION = 1; // the user is panning/zooming the camera
+	static final int MODE_SHAPE_MANIPULATION = 2; // the user is translating/rotating/scaling a shape
+    static final int MODE_POLYGON_MANIPULATION = 3; // the user is translating/rotating/scaling a shape
+	static final int MODE_LASSO = 4; // the user is drawing a lasso to select shapes
+	static final int MODE_CREATE = 5;
+	static final int MODE_FRAMETOSHAPE = 6;
+	static final int MODE_FRAMETOSCENE = 7;
+	static final int MODE_ERASE = 8;
+	// indexed by the above, for reports
+	static final String [] MODE_NAMES = {
+		"NEUTRAL", "CAMERA_MANIPULATION", "SHAPE_MANIPULATION", "POLYGON_MANIPULATION",
+		"LASSO", "CREATE", "FRAMETOSHAPE", "FRAMETOSCENE", "ERASE"
+	};
+	int currentMode = MODE_NEUTRAL;
+
+	// This is only used when currentMode==MODE_SHAPE_MANIPULATION, otherwise it is equal to -1
+	int indexOfShapeBeingManipulated = -1;
+
+	MyButton lassoButton = new MyButton( "Lasso", 10, 70, 140, 140 );
+	MyButton createButton = new MyButton("Create", 10, 220, 140, 140);
+	MyButton frameToShapeButton = new MyButton("Zoom Shape", 10, 370, 140, 140);
+	MyButton frameToSceneButton = new MyButton("AutoZoom", 10, 520, 140, 140);
+	MyButton eraseButton = new MyButton("Erase", 10, 670, 140, 140);
+
+    ArrayList<Point2D> lassoPolygonPoints;
+
+	// The path of the finger drawing a lasso is simplified as it is received,
+	// keeping it within this distance of the finger's actual path.
+	static final float LASSO_TOLERANCE_IN_PIXELS = 1.5f;
+
+	// True if fingers have moved since the last call to applyCursorMotion().
+	private boolean isCursorMotionPending = false;
+
+	// Touch events only record the new positions of the fingers and request a frame;
+	// the manipulations are applied once per frame, at the start of draw().
+	FrameScheduler frameScheduler;
+
+	// Times the touch events and the phases of each frame.
+	// It reads the system's clock, even when the frames are paced by a simulated one,
+	// since it measures the work actually done.
+	PerformanceMonitor performanceMonitor = new PerformanceMonitor( FrameScheduler.SYSTEM_CLOCK, MODE_NAMES );
+	boolean isShowingPerformanceOverlay = false;
+
+	// Scratch points, in world space, reused by every touch event to avoid allocating.
+	private Point2D worldA_old = new Point2D();
+	private Point2D worldB_old = new Point2D();
+	private Point2D worldA_new = new Point2D();
+	private Point2D worldB_new = new Point2D();
+
+	// The host is asked to redraw when a frame is requested,
+	// and must then call draw() at the next refresh of the display.
+	public DrawingController( FrameScheduler.Host host, FrameScheduler.Clock clock ) {
+		frameScheduler = new FrameScheduler( host, clock );
+	}
+
+	// Draws a frame on the given surface, after applying the motion of the fingers since the previous frame.
+	public void draw( DrawingSurface surface ) {
+		long frameStartTime = performanceMonitor.startTimer();
+		frameScheduler.beginFrame();
+		applyCursorMotion();
+		long t = performanceMonitor.recordPhase( PerformanceMonitor.PHASE_MOTION, frameStartTime );
+
+		gw.setSurface( surface );
+		gw.resetNumRetainedPathsBuilt();
+		gw.clear( 0.0f, 0.0f, 0.0f );
+
+		gw.setCoordinateSystemToWorldSpaceUnits();
+
+		gw.setLineWidth( 1 );
+
+		// draw a polygon around the currently selected shapes
+		if ( selectedShapes.size() > 0 ) {
+			gw.setColor( 1.0f, 0.0f, 0.0f, 0.8f );
+			// while the selected shapes are being manipulated, the hull moves along with them
+			if ( selectionGroup.isActive() )
+				gw.pushTransform( selectionGroup.getTransform() );
+			selectionHull.fill( gw, selectedShapes );
+			if ( selectionGroup.isActive() )
+				gw.popTransform();
+		}
+		t = performanceMonitor.recordPhase( PerformanceMonitor.PHASE_SELECTION_HULL, t );
+
+		// draw all the shapes
+		shapeContainer.draw( gw, indexOfShapeBeingManipulated );
+		t = performanceMonitor.recordPhase( PerformanceMonitor.PHASE_SHAPES, t );
+
+		gw.setCoordinateSystemToPixels();
+
+		lassoButton.draw( gw, currentMode == MODE_LASSO );
+		createButton.draw( gw, currentMode ==  MODE_CREATE);
+		frameToShapeButton.draw(gw, currentMode == MODE_FRAMETOSHAPE);
+		frameToSceneButton.draw(gw, currentMode == MODE_FRAMETOSCENE);
+		eraseButton.draw(gw, currentMode == MODE_ERASE);
+		t = performanceMonitor.recordPhase( PerformanceMonitor.PHASE_BUTTONS, t );
+
+		/*if(lassoPolygonPoints != null && lassoPolygonPoints.size() > 0) {
+			gw.setColor(0.0f, 0.0f, 1f, 0.5f);
+
+			ArrayList<Point2D> w = new ArrayList<Point2D>();
+
+			for(Point2D l : lassoPolygonPoints){
+
+				w.add(gw.convertWorldSpaceUnitsToPixels(l));
+
+			}
+
+			gw.fillPolygon(w);
+		}*/
+
+		if ( currentMode == MODE_LASSO ) {
+			MyCursor lassoCursor = cursorContainer.getCursorByType( MyCursor.TYPE_DRAGGING, 0 );
+			if ( lassoCursor != null && lassoCursor.isKeepingFullPath() ) {
+				gw.setColor(1.0f,0.0f,0.0f,0.5f);
+				gw.fillPolygon( lassoCursor.getPathCoordinates(), lassoCursor.getPathSize() );
+			}
+		}
+
+
+		if ( cursorContainer.getNumCursors() > 0 ) {
+			gw.setFontHeight( 30 );
+			gw.setLineWidth( 2 );
+			gw.setColor( 1.0f, 1.0f, 1.0f );
+			gw.drawString( 50, 50, "[" + cursorContainer.getNumCursors() + " contacts] ["
+				+ shapeContainer.getNumShapesDrawnInLastFrame() + " shapes drawn, "
+				+ shapeContainer.getNumShapesFromLayerInLastFrame() + " from layer, "
+				+ shapeContainer.getNumShapesCulledInLastFrame() + " culled] ["
+				+ frameScheduler.getNumDroppedFrames() + " frames dropped, "
+				+ frameScheduler.getNumCoalescedRequests() + " requests coalesced] ["
+				+ gw.getNumRetainedPathsBuilt() + " paths rebuilt]" );
+		}
+
+		if ( isShowingPerformanceOverlay )
+			performanceMonitor.drawOverlay( gw );
+
+		performanceMonitor.recordPhase( PerformanceMonitor.PHASE_HUD, t );
+		performanceMonitor.recordPhase( PerformanceMonitor.PHASE_FRAME, frameStartTime );
+	}
+	
+	// Applies the displacement of the fingers since the previous call
+	// to whatever the current mode is manipulating.
+	// This is done once at the start of each frame, rather than for every touch event,
+	// and also before a finger goes down or up, so that no displacement is lost
+	// when the number of fingers changes.
+	private void applyCursorMotion() {
+		if ( ! isCursorMotionPending )
+			return;
+		isCursorMotionPending = false;
+
+		switch ( currentMode ) {
+			case MODE_CAMERA_MANIPULATION:
+				if (cursorContainer.getNumCursors() == 1) {
+					MyCursor cursor0 = cursorContainer.getCursorByIndex(0);
+
+					gw.panBasedOnDisplacementOfOnePoint(
+							cursor0.getPreviousPosition(),
+							cursor0.getCurrentPosition()
+					);
+
+				} else if (cursorContainer.getNumCursors() == 2 ) {
+					MyCursor cursor0 = cursorContainer.getCursorByIndex(0);
+					MyCursor cursor1 = cursorContainer.getCursorByIndex(1);
+					gw.panAndZoomBasedOnDisplacementOfTwoPoints(
+							cursor0.getPreviousPosition(),
+							cursor1.getPreviousPosition(),
+							cursor0.getCurrentPosition(),
+							cursor1.getCurrentPosition()
+					);
+				}
+				break;
+			case MODE_SHAPE_MANIPULATION:
+				if (indexOfShapeBeingManipulated >= 0) {
+					Shape shape = shapeContainer.getShape(indexOfShapeBeingManipulated);
+					// translation of the shape with one finger
+					if (cursorContainer.getNumCursors() == 1) {
+						MyCursor cursor0 = cursorContainer.getCursorByIndex(0);
+
+						gw.convertPixelsToWorldSpaceUnits(cursor0.getPreviousPosition(), worldA_old);
+						gw.convertPixelsToWorldSpaceUnits(cursor0.getCurrentPosition(), worldA_new);
+						shape.translateBasedOnDisplacementOfOnePoint(worldA_old, worldA_new);
+						shapeContainer.shapeWasModified(shape);
+					} else if (cursorContainer.getNumCursors() == 2) { // transformation of the shape with 2 fingers
+						MyCursor cursor0 = cursorContainer.getCursorByIndex(0);
+						MyCursor cursor1 = cursorContainer.getCursorByIndex(1);
+
+						gw.convertPixelsToWorldSpaceUnits(cursor0.getPreviousPosition(), worldA_old);
+						gw.convertPixelsToWorldSpaceUnits(cursor1.getPreviousPosition(), worldB_old);
+						gw.convertPixelsToWorldSpaceUnits(cursor0.getCurrentPosition(), worldA_new);
+						gw.convertPixelsToWorldSpaceUnits(cursor1.getCurrentPosition(), worldB_new);
+						shape.transformBasedOnDisplacementOfTwoPoints(worldA_old, worldB_old, worldA_new, worldB_new);
+						shapeContainer.shapeWasModified(shape);
+					}
+				}
+				break;
+			case MODE_POLYGON_MANIPULATION:
+				// Only the transform shared by the selected shapes is updated,
+				// it is applied to them when the manipulation ends (see endSelectionManipulation()).
+				if (cursorContainer.getNumCursors() == 1) {
+					MyCursor cursor0 = cursorContainer.getCursorByIndex(0);
+					gw.convertPixelsToWorldSpaceUnits(cursor0.getPreviousPosition(), worldA_old);
+					gw.convertPixelsToWorldSpaceUnits(cursor0.getCurrentPosition(), worldA_new);
+					selectionGroup.translateBasedOnDisplacementOfOnePoint(worldA_old, worldA_new);
+				} else if (cursorContainer.getNumCursors() == 2) {
+					MyCursor cursor0 = cursorContainer.getCursorByIndex(0);
+					MyCursor cursor1 = cursorContainer.getCursorByIndex(1);
+					gw.convertPixelsToWorldSpaceUnits(cursor0.getPreviousPosition(), worldA_old);
+					gw.convertPixelsToWorldSpaceUnits(cursor1.getPreviousPosition(), worldB_old);
+					gw.convertPixelsToWorldSpaceUnits(cursor0.getCurrentPosition(), worldA_new);
+					gw.convertPixelsToWorldSpaceUnits(cursor1.getCurrentPosition(), worldB_new);
+					selectionGroup.transformBasedOnDisplacementOfTwoPoints(worldA_old, worldB_old, worldA_new, worldB_new);
+				}
+				break;
+		}
+
+		cursorContainer.beginBatch();
+	}
+
+	// Applies the transform of the selection group to the selected shapes,
+	// along with the selection hull, and ends the group.
+	private void endSelectionManipulation() {
+		selectionHull.transformShapes(selectedShapes, selectionGroup.getTransform());
+		selectionGroup.end();
+		shapeContainer.setActiveGroup(null);
+		for (int i = 0; i < selectedShapes.size(); ++i) {
+			Shape s = selectedShapes.get(i);
+			s.bakeTransform();
+			shapeContainer.shapeWasModified(s);
+		}
+	}
+
+
+	public void setDisplayRefreshRate( float framesPerSecond ) {
+		frameScheduler.setRefreshRate( framesPerSecond );
+	}
+
+	// Updates the state of the application according to the given touch event,
+	// and requests a frame.
+	// The action of the batch must be one of TouchBatch.ACTION_DOWN, ACTION_UP, and ACTION_MOVE.
+	public void handleTouchBatch( TouchBatch batch ) {
+		// the time is attributed to the mode the event was received in, even if the event changes the mode
+		int mode = currentMode;
+		long startTime = performanceMonitor.startTimer();
+		processTouchBatch( batch );
+		performanceMonitor.recordTouch( mode, batch.getAction(), startTime );
+	}
+
+	private void processTouchBatch( TouchBatch batch ) {
+		int type = batch.getAction();
+
+		if ( type != TouchBatch.ACTION_MOVE ) {
+			// A finger is going down or up, which may change what the other fingers are doing,
+			// so their displacement so far must be applied first.
+			applyCursorMotion();
+		}
+
+		int id = batch.getActionPointerId();
+		int lastSample = batch.getNumSamples() - 1;
+		int actionPointerIndex = batch.findPointerIndex(id);
+		float x = batch.getX(lastSample, actionPointerIndex);
+		float y = batch.getY(lastSample, actionPointerIndex);
+		// Find the cursor that corresponds to the event id, if such a cursor already exists.
+		// If no such cursor exists, the below index will be -1, and the reference to cursor will be null.
+		int cursorIndex = cursorContainer.findIndexOfCursorById( id );
+		MyCursor cursor = (cursorIndex==-1) ? null : cursorContainer.getCursorByIndex( cursorIndex );
+
+		if ( cursor == null ) {
+			// The event does not correspond to any existing cursor.
+			// In other words, this is a new finger touching the screen.
+			// The event is probably of type DOWN.
+			// A new cursor will need to be created for the event.
+			if ( type == TouchBatch.ACTION_UP ) {
+				// This should never happen, but if it does, just ignore the event.
+				return;
+			}
+			if ( type != TouchBatch.ACTION_DOWN ) {
+				// The new finger was reported as moving, so the motion of the other fingers
+				// has not been applied yet, and must be before the number of fingers changes.
+				applyCursorMotion();
+			}
+			type = TouchBatch.ACTION_DOWN;
+			// Cause a new cursor to be created to keep track of this event id in the future
+			cursorIndex = cursorContainer.updateCursorById( id, x, y );
+			cursor = cursorContainer.getCursorByIndex( cursorIndex );
+
+			// we will set the type of the cursor later, by calling cursor.setType( MyCursor.TYPE_... );
+		}
+		else {
+			// The event corresponds to an already existing cursor
+			// (and the cursor was probably created during an earlier event of type TOUCH_EVENT_DOWN).
+			// The current event is probably of type MOVE or UP.
+
+			if ( type == TouchBatch.ACTION_MOVE ) {
+				// Other fingers may have also moved, and their new positions are available in the event passed to us,
+				// along with the intermediate positions of every finger since the previous event.
+				// All of them are added to the cursors now, so that a lasso receives every position,
+				// while the manipulations are applied once per frame by applyCursorMotion(),
+				// based on the displacement of each finger since the previous frame.
+				cursorContainer.applyBatch( batch );
+				isCursorMotionPending = true;
+			}
+			else {
+				cursorContainer.updateCursorById( id, x, y );
+			}
+		}
+		
+		switch ( currentMode ) {
+			case MODE_NEUTRAL:
+				if (cursorContainer.getNumCursors() == 1 && type == TouchBatch.ACTION_DOWN) {
+					Point2D p_pixels = new Point2D(x, y);
+					Point2D p_world = gw.convertPixelsToWorldSpaceUnits(p_pixels);
+					indexOfShapeBeingManipulated = shapeContainer.indexOfShapeContainingGivenPoint(p_world);
+
+					if (lassoButton.contains(p_pixels)) {
+						currentMode = MODE_LASSO;
+						cursor.setType(MyCursor.TYPE_BUTTON);
+					} else if (createButton.contains(p_pixels)) {
+						currentMode = MODE_CREATE;
+						cursor.setType(MyCursor.TYPE_BUTTON);
+					}
+					else if (frameToShapeButton.contains(p_pixels)) {
+						currentMode = MODE_FRAMETOSHAPE;
+						cursor.setType(MyCursor.TYPE_BUTTON);
+					}
+					else if (frameToSceneButton.contains(p_pixels)) {
+						currentMode = MODE_FRAMETOSCENE;
+					}
+					else if (eraseButton.contains(p_pixels)) {
+						currentMode = MODE_ERASE;
+						cursor.setType(MyCursor.TYPE_BUTTON);
+					}
+					else if (indexOfShapeBeingManipulated >= 0) {
+						currentMode = MODE_SHAPE_MANIPULATION;
+						cursor.setType(MyCursor.TYPE_DRAGGING);
+						shapeContainer.setLiveShape(shapeContainer.getShape(indexOfShapeBeingManipulated));
+					}
+					else if(lassoPolygonPoints != null && selectionHull.contains(selectedShapes, p_world)){
+						currentMode = MODE_POLYGON_MANIPULATION;
+						cursor.setType(MyCursor.TYPE_DRAGGING);
+						selectionGroup.begin(selectedShapes);
+						shapeContainer.setActiveGroup(selectionGroup);
+					}
+					else {
+						currentMode = MODE_CAMERA_MANIPULATION;
+						cursor.setType(MyCursor.TYPE_DRAGGING);
+					}
+				}
+				break;
+			case MODE_CAMERA_MANIPULATION:
+				// motion is applied at the start of the next frame, by applyCursorMotion()
+				if (type == TouchBatch.ACTION_UP) {
+					cursorContainer.removeCursorByIndex(cursorIndex);
+					if (cursorContainer.getNumCursors() == 0)
+						currentMode = MODE_NEUTRAL;
+				}
+				break;
+			case MODE_SHAPE_MANIPULATION:
+				// motion is applied at the start of the next frame, by applyCursorMotion()
+				if (type == TouchBatch.ACTION_UP) {
+					cursorContainer.removeCursorByIndex(cursorIndex);
+					if (cursorContainer.getNumCursors() == 0) {
+						// the manipulation is over, so its transformation can be applied to the shape's points
+						if (indexOfShapeBeingManipulated >= 0) {
+							Shape shape = shapeContainer.getShape(indexOfShapeBeingManipulated);
+							shape.bakeTransform();
+							shapeContainer.shapeWasModified(shape);
+						}
+						shapeContainer.setLiveShape(null);
+						currentMode = MODE_NEUTRAL;
+						indexOfShapeBeingManipulated = -1;
+					}
+				}
+				break;
+			case MODE_POLYGON_MANIPULATION:
+				// motion is applied at the start of the next frame, by applyCursorMotion()
+				if (type == TouchBatch.ACTION_UP) {
+					cursorContainer.removeCursorByIndex(cursorIndex);
+					if (cursorContainer.getNumCursors() == 0) {
+						// the manipulation is over, so its transformation can be applied to the shapes' points
+						endSelectionManipulation();
+						currentMode = MODE_NEUTRAL;
+					}
+					indexOfShapeBeingManipulated = -1;
+				}
+				break;
+			case MODE_LASSO:
+				if (type == TouchBatch.ACTION_DOWN) {
+					if (cursorContainer.getNumCursorsOfGivenType(MyCursor.TYPE_DRAGGING) == 1)
+						// there's already a finger dragging out the lasso
+						cursor.setType(MyCursor.TYPE_IGNORE);
+					else {
+						cursor.setType(MyCursor.TYPE_DRAGGING);
+						// the whole path of this finger is needed to close the lasso
+						cursor.keepFullPath(LASSO_TOLERANCE_IN_PIXELS);
+					}
+				} else if (type == TouchBatch.ACTION_MOVE) {
+					// no further updating necessary here
+				} else if (type == TouchBatch.ACTION_UP) {
+					if (cursor.getType() == MyCursor.TYPE_DRAGGING) {
+						// complete a lasso selection
+						selectedShapes.clear();
+
+						// Need to transform the positions of the cursor from pixels to world space coordinates.
+						// We will store the world space coordinates in the following data structure.
+						cursor.finishPath();
+						float [] path = cursor.getPathCoordinates();
+						int pathSize = cursor.getPathSize();
+						lassoPolygonPoints = new ArrayList<Point2D>(pathSize);
+						for (int i = 0; i < pathSize; ++i)
+							lassoPolygonPoints.add(new Point2D(
+								gw.convertPixelsToWorldSpaceUnitsX(path[2*i]),
+								gw.convertPixelsToWorldSpaceUnitsY(path[2*i+1])
+							));
+
+						shapeContainer.getShapesContainedInLassoPolygon(lassoPolygonPoints, selectedShapes);
+					}
+					cursorContainer.removeCursorByIndex(cursorIndex);
+					if (cursorContainer.getNumCursors() == 0) {
+						currentMode = MODE_NEUTRAL;
+					}
+				}
+				break;
+			case MODE_CREATE:
+
+				if (type == TouchBatch.ACTION_DOWN) {
+
+					Point2D p_pixels = new Point2D(x, y);
+
+					if(createButton.contains(p_pixels) && cursorContainer.getNumCursors() <= 2){
+						currentMode = MODE_NEUTRAL;
+						cursorContainer.removeAllCursors();
+						break;
+					}
+
+					cursor.setType(MyCursor.TYPE_CREATE);
+
+				} else if (type == TouchBatch.ACTION_UP) {
+
+
+					if (cursorContainer.getNumCursors() >= 3) {
+
+						ArrayList<Point2D> positions = cursorContainer.getPositionsOfCursorsOfType(MyCursor.TYPE_CREATE);
+
+
+						//Convert them to world units
+						for (int i = 0; i < positions.size(); i++) {
+
+							positions.set(i, gw.convertPixelsToWorldSpaceUnits(positions.get(i)));
+						}
+
+						shapeContainer.addShape((Point2DUtil.computeConvexHull(positions)));
+
+						cursorContainer.removeAllCursors();
+
+					}
+
+					if (cursorContainer.getNumCursors() == 0) {
+						currentMode = MODE_NEUTRAL;
+					}
+				}
+
+				break;
+
+			case MODE_FRAMETOSHAPE:
+				if (type == TouchBatch.ACTION_DOWN) {
+					Point2D p_pixels = new Point2D(x, y);
+					if (frameToShapeButton.contains(p_pixels)) {
+						currentMode = MODE_NEUTRAL;
+						break;
+					}
+
+					Point2D p_world = gw.convertPixelsToWorldSpaceUnits(p_pixels);
+					indexOfShapeBeingManipulated = shapeContainer.indexOfShapeContainingGivenPoint(p_world);
+					if (indexOfShapeBeingManipulated != -1) {
+						AlignedRectangle2D targetRect = shapeContainer.getShape(indexOfShapeBeingManipulated).getBoundingRectangle();
+						gw.frame(targetRect, true);
+						indexOfShapeBeingManipulated = -1;
+						currentMode = MODE_NEUTRAL;
+					}
+				}
+				break;
+
+			case MODE_FRAMETOSCENE:
+
+				gw.frame(shapeContainer.getBoundingRectangle(), true);
+				currentMode = MODE_NEUTRAL;
+				break;
+
+			case MODE_ERASE:
+				if (type == TouchBatch.ACTION_DOWN) {
+					Point2D hitPoint = new Point2D(x, y);
+					if (eraseButton.contains(hitPoint)) {
+						currentMode = MODE_NEUTRAL;
+						break;
+					}
+
+					Point2D p_world = gw.convertPixelsToWorldSpaceUnits(hitPoint);
+					indexOfShapeBeingManipulated = shapeContainer.indexOfShapeContainingGivenPoint(p_world);
+					if (indexOfShapeBeingManipulated != -1) {
+						AlignedRectangle2D targetRect = shapeContainer.getShape(indexOfShapeBeingManipulated).getBoundingRectangle();
+						selectedShapes.remove(shapeContainer.getShape(indexOfShapeBeingManipulated));
+						shapeContainer.removeShape(indexOfShapeBeingManipulated);
+						indexOfShapeBeingManipulated = -1;
+						currentMode = MODE_NEUTRAL;
+					}
+				}
+				break;
+		}
+
+		frameScheduler.requestFrame();
+	}
+}
@@ -0,0 +1,60 @@
+package log350.example.example6;
+
+
+// The target of the drawing done through GraphicsWrapper.
+//
+// GraphicsWrapper keeps track of the camera and of what must be drawn,
+// and passes the actual drawing to an implementation of this interface.
+// CanvasSurface draws on an android.graphics.Canvas, and is what the application uses.
+// RecordingSurface only records what it is asked to draw, and does not depend on Android,
+// so that the drawing code can be run and timed on a plain Java virtual machine.
+//
+// Coordinates are transformed by the surface's current transformation,
+// which maps them to pixels, and which starts as the identity.
+interface DrawingSurface {
+
+	// The size of the surface, in pixels.
+	int getWidth();
+	int getHeight();
+
+	// Sets the current transformation back to the identity, so that coordinates are in pixels.
+	void setTransformToIdentity();
+	// These apply the given transformation to coordinates, before the current transformation.
+	void translate( float dx, float dy );
+	void scale( float s );
+	void concat( Transform2D t );
+	// Saves the current transformation, to be restored by the matching call to restore().
+	void save();
+	void restore();
+
+	void setColor( float r, float g, float b, float alpha );
+	void setLineWidth( float width );
+	void setFontHeight( int height );
+
+	// Fills the whole surface with the given color, ignoring the current transformation.
+	void clear( float r, float g, float b );
+
+	void drawLine( float x1, float y1, float x2, float y2 );
+	// The points are packed as x0, y0, x1, y1, ...
+	void drawPolyline( float [] coordinates, int numPoints, boolean isClosed, boolean isFilled );
+	// Same as drawPolyline(), for a filled polygon whose prepared geometry is kept in the given holder,
+	// and rebuilt only if the given version differs from the one it was built for.
+	// Returns true if the geometry was rebuilt.
+	boolean fillPolygon( float [] coordinates, int numPoints, RetainedGeometry retained, int version );
+	void drawRect( float x, float y, float w, float h, boolean isFilled );
+	void drawCircle( float x, float y, float radius, boolean isFilled );
+	float stringWidth( String s );
+	// (x,y) is the lower left corner of the string
+	void drawString( float x, float y, String s );
+
+	// Clears an offscreen layer the size of the surface (allocating it if needed),
+	// and redirects subsequent drawing to it, with the identity as the current transformation,
+	// until endLayer() is called.
+	void beginLayer();
+	// Redirects drawing back to the surface, with the identity as the current transformation.
+	void endLayer();
+	// Copies the layer to the surface, at the origin of the pixels, whatever the current transformation.
+	void drawLayer();
+	// Frees the memory used by the layer.
+	void releaseLayer();
+}
@@ -0,0 +1,97 @@
+package log350.example.example6;
+
+
+// Paces redraws to the display's refresh rate, independently of how often touch events arrive.
+//
+// Whenever something changes that requires a redraw, requestFrame() should be called.
+// Only the first request after a frame is passed on to the host (which, for a view, calls invalidate()),
+// later requests are merged ("coalesced") into the pending frame.
+// The host must call beginFrame() at the start of each frame it draws,
+// which is when work collected since the previous frame should be applied.
+//
+// The scheduler also counts dropped frames: a requested frame that starts more than one
+// refresh interval after it was requested has missed at least one refresh of the display.
+//
+// Time is read from a Clock, which can be replaced (for example, by a simulated clock),
+// so that the scheduler does not depend on the platform.
+class FrameScheduler {
+
+	public interface Clock {
+		// Returns the current time, in nanoseconds, from an arbitrary origin.
+		long nanoTime();
+	}
+
+	public static final Clock SYSTEM_CLOCK = new Clock() {
+		public long nanoTime() { return System.nanoTime(); }
+	};
+
+	public interface Host {
+		// Must cause beginFrame() to be called at the next refresh of the display.
+		void requestRedraw();
+	}
+
+	private Clock clock;
+	private Host host;
+	private long frameIntervalInNanoseconds = 1000000000L / 60;
+
+	private boolean isFramePending = false;
+	private long timeOfFirstPendingRequest = 0; // only meaningful if isFramePending
+
+	private int numFrames = 0;
+	private int numRequestedFrames = 0;
+	private int numCoalescedRequests = 0;
+	private int numDroppedFrames = 0;
+	private long maxRequestLatencyInNanoseconds = 0;
+
+	public FrameScheduler( Host host, Clock clock ) {
+		this.host = host;
+		this.clock = clock;
+	}
+
+	public void setRefreshRate( float framesPerSecond ) {
+		if ( framesPerSecond > 0 )
+			frameIntervalInNanoseconds = (long)( 1000000000.0 / framesPerSecond );
+	}
+	public long getFrameIntervalInNanoseconds() { return frameIntervalInNanoseconds; }
+
+	public boolean isFramePending() { return isFramePending; }
+
+	// Asks for a frame to be drawn at the next refresh of the display.
+	public void requestFrame() {
+		if ( isFramePending ) {
+			++ numCoalescedRequests;
+			return;
+		}
+		isFramePending = true;
+		timeOfFirstPendingRequest = clock.nanoTime();
+		host.requestRedraw();
+	}
+
+	// Must be called by the host at the start of every frame it draws,
+	// including frames that were not requested through this scheduler.
+	public void beginFrame() {
+		++ numFrames;
+		if ( ! isFramePending )
+			return;
+		isFramePending = false;
+		++ numRequestedFrames;
+		long latency = clock.nanoTime() - timeOfFirstPendingRequest;
+		if ( latency > maxRequestLatencyInNanoseconds )
+			maxRequestLatencyInNanoseconds = latency;
+		// A frame that starts exactly one refresh interval after the request was on time;
+		// each further full interval is a refresh that the frame missed.
+		if ( latency > 0 )
+			numDroppedFrames += (int)( ( latency - 1 ) / frameIntervalInNanoseconds );
+	}
+
+	public int getNumFrames() { return numFrames; }
+	public int getNumRequestedFrames() { return numRequestedFrames; }
+	public int getNumCoalescedRequests() { return numCoalescedRequests; }
+	public int getNumDroppedFrames() { return numDroppedFrames; }
+	public long getMaxRequestLatencyInNanoseconds() { return maxRequestLatencyInNanoseconds; }
+
+	public void resetStatistics() {
+		numFrames = numRequestedFrames = numCoalescedRequests = numDroppedFrames = 0;
+		maxRequestLatencyInNanoseconds = 0;
+	}
+}
@@ -1,22 +1,14 @@
 package log350.example.example6;
 
-import android.graphics.Paint;
-//import android.graphics.Paint.Style;
-import android.graphics.Canvas;
-import android.graphics.Path;
-import android.graphics.Matrix;
-import android.graphics.Rect;
-
-
 import java.lang.Math;
 import java.util.ArrayList;
 //import java.awt.Color;
 
 
+// Keeps track of the camera (the mapping between world space units and pixels),
+// and draws through a DrawingSurface, in either world space units or pixels.
 class GraphicsWrapper {
 
-	Matrix originalMatrix = null;
-
 	private int windowWidthInPixels = 10; // must be initialized to something positive
 	private int windowHeightInPixels = 10; // must be initialized to something positive
 
@@ -28,12 +20,22 @@ class GraphicsWrapper {
 	public int getHeight() { return windowHeightInPixels; }
 
 
-	private Paint paint = null;
-	private Canvas canvas = null;
-	private Rect rect = new Rect();
-	private Path path = new Path();
+	private DrawingSurface surface = null;
+	// Reused by drawPolyline(), to pack the points of a list.
+	private float [] packedCoordinates = new float[ 2 * 16 ];
 
-	public void set( Paint p, Canvas c ) { this.paint = p; this.canvas = c; this.originalMatrix = c.getMatrix(); windowWidthInPixels=c.getWidth(); windowHeightInPixels=c.getHeight(); }
+	// Must be called before drawing, and whenever the surface's size may have changed (such as at the start of every frame).
+	public void setSurface( DrawingSurface s ) {
+		if ( s != surface )
+			hasLayer = false;
+		surface = s;
+		windowWidthInPixels = s.getWidth();
+		windowHeightInPixels = s.getHeight();
+		// A layer of the previous size cannot be reused.
+		if ( hasLayer && ( layerWidthInPixels != windowWidthInPixels || layerHeightInPixels != windowHeightInPixels ) )
+			releaseLayer();
+	}
+	public DrawingSurface getSurface() { return surface; }
 
 
 
@@ -41,7 +43,7 @@ class GraphicsWrapper {
 	private int fontHeight = 14;
 	public void setFontHeight( int h ) {
 		fontHeight = h;
-		paint.setTextSize( fontHeight );
+		surface.setFontHeight( fontHeight );
 	}
 	public int getFontHeight() {
 		return fontHeight;
@@ -62,12 +64,35 @@ class GraphicsWrapper {
 	public float convertPixelsToWorldSpaceUnitsX( float XInPixels ) { return ( XInPixels - offsetXInPixels )*scaleFactorInWorldSpaceUnitsPerPixel; }
 	public float convertPixelsToWorldSpaceUnitsY( float YInPixels ) { return ( YInPixels - offsetYInPixels )*scaleFactorInWorldSpaceUnitsPerPixel; }
 	public Point2D convertPixelsToWorldSpaceUnits( Point2D p ) { return new Point2D(convertPixelsToWorldSpaceUnitsX(p.x()),convertPixelsToWorldSpaceUnitsY(p.y())); }
+	// Same as above, storing the result in the given point (which may be the same as the input) instead of allocating.
+	public void convertPixelsToWorldSpaceUnits( Point2D p, Point2D result ) { result.copy(convertPixelsToWorldSpaceUnitsX(p.x()),convertPixelsToWorldSpaceUnitsY(p.y())); }
 
 	public int convertWorldSpaceUnitsToPixelsX( float x ) { return Math.round( x / scaleFactorInWorldSpaceUnitsPerPixel + offsetXInPixels ); }
 	public int convertWorldSpaceUnitsToPixelsY( float y ) { return Math.round( y / scaleFactorInWorldSpaceUnitsPerPixel + offsetYInPixels ); }
 	public Point2D convertWorldSpaceUnitsToPixels( Point2D p ) { return new Point2D(convertWorldSpaceUnitsToPixelsX(p.x()),convertWorldSpaceUnitsToPixelsY(p.y())); }
+	public void convertWorldSpaceUnitsToPixels( Point2D p, Point2D result ) { result.copy(convertWorldSpaceUnitsToPixelsX(p.x()),convertWorldSpaceUnitsToPixelsY(p.y())); }
 
 	public float getScaleFactorInWorldSpaceUnitsPerPixel() { return scaleFactorInWorldSpaceUnitsPerPixel; }
+	public float getOffsetXInPixels() { return offsetXInPixels; }
+	public float getOffsetYInPixels() { return offsetYInPixels; }
+
+	// Restores a camera obtained from the above getters.
+	public void setCamera( float offsetXInPixels, float offsetYInPixels, float scaleFactorInWorldSpaceUnitsPerPixel ) {
+		this.offsetXInPixels = offsetXInPixels;
+		this.offsetYInPixels = offsetYInPixels;
+		this.scaleFactorInWorldSpaceUnitsPerPixel = scaleFactorInWorldSpaceUnitsPerPixel;
+		hasFrameOrResizeBeenCalledBefore = true;
+	}
+
+	// Stores, in the given rectangle, the region of world space that is currently visible in the window.
+	public void getViewportInWorldSpaceUnits( AlignedRectangle2D viewport ) {
+		viewport.clear();
+		viewport.bound( convertPixelsToWorldSpaceUnitsX( 0 ), convertPixelsToWorldSpaceUnitsY( 0 ) );
+		viewport.bound(
+			convertPixelsToWorldSpaceUnitsX( windowWidthInPixels ),
+			convertPixelsToWorldSpaceUnitsY( windowHeightInPixels )
+		);
+	}
 
 	public void pan( float dx, float dy ) {
 		offsetXInPixels += dx;
@@ -92,8 +117,7 @@ class GraphicsWrapper {
 			Point2D P_old,
 			Point2D P_new
 	) {
-		Vector2D translation = Point2D.diff( P_new, P_old );
-		pan( translation.x(), translation.y() );
+		pan( P_new.x() - P_old.x(), P_new.y() - P_old.y() );
 	}
 
 	// This can be used to implement bimanual (2-handed) camera control,
@@ -104,23 +128,19 @@ class GraphicsWrapper {
 		Point2D A_new, Point2D B_new
 	) {
 		// Compute midpoints of each pair of points
-		Point2D M1 = Point2D.average( A_old, B_old );
-		Point2D M2 = Point2D.average( A_new, B_new );
+		float M1x = (A_old.x()+B_old.x())*0.5f, M1y = (A_old.y()+B_old.y())*0.5f;
+		float M2x = (A_new.x()+B_new.x())*0.5f, M2y = (A_new.y()+B_new.y())*0.5f;
 
-		// This is the translation that the world should appear to undergo.
-		Vector2D translation = Point2D.diff( M2, M1 );
+		// The world should appear to undergo the translation from M1 to M2.
 
-		// Compute a vector associated with each pair of points.
-		Vector2D v1 = Point2D.diff( A_old, B_old );
-		Vector2D v2 = Point2D.diff( A_new, B_new );
-
-		float v1_length = v1.length();
-		float v2_length = v2.length();
+		// Compute the length of a vector associated with each pair of points.
+		float v1_length = A_old.distance( B_old );
+		float v2_length = A_new.distance( B_new );
 		float scaleFactor = 1;
 		if ( v1_length > 0 && v2_length > 0 )
 			scaleFactor = v2_length / v1_length;
-		pan( translation.x(), translation.y() );
-		zoomIn( scaleFactor, M2.x(), M2.y() );
+		pan( M2x - M1x, M2y - M1y );
+		zoomIn( scaleFactor, M2x, M2y );
 	}
 
 	public void frame(
@@ -180,18 +200,110 @@ class GraphicsWrapper {
 	}
 
 	public void setCoordinateSystemToPixels() {
-		canvas.setMatrix( originalMatrix );
+		surface.setTransformToIdentity();
+		isInWorldSpaceUnits = false;
 	}
 
 	public void setCoordinateSystemToWorldSpaceUnits() {
-		canvas.setMatrix( originalMatrix );
-		canvas.translate( offsetXInPixels, offsetYInPixels );
-		float s = 1.0f/scaleFactorInWorldSpaceUnitsPerPixel;
-		canvas.scale( s, s );
+		surface.setTransformToIdentity();
+		surface.translate( offsetXInPixels, offsetYInPixels );
+		surface.scale( 1.0f/scaleFactorInWorldSpaceUnitsPerPixel );
+		isInWorldSpaceUnits = true;
+	}
+
+	// Used to compute the size of a pixel in the units of the current coordinate system.
+	private boolean isInWorldSpaceUnits = false;
+	// Product of the scale factors of the transforms pushed by pushTransform(), with one entry per push.
+	private float [] transformScaleStack = new float[ 8 ];
+	private int transformScaleStackSize = 0;
+	private float transformScale = 1;
+
+	// Returns the length, in the units of the current coordinate system (including the pushed transforms),
+	// that covers one pixel.
+	// Detail smaller than this cannot be seen, and need not be drawn.
+	public float getSizeOfPixelInCurrentUnits() {
+		return ( isInWorldSpaceUnits ? scaleFactorInWorldSpaceUnitsPerPixel : 1 ) / transformScale;
+	}
+
+	// Causes subsequent drawing to be transformed by the given transformation,
+	// in addition to the current coordinate system, until the matching call to popTransform().
+	public void pushTransform( Transform2D t ) {
+		surface.save();
+		surface.concat( t );
+
+		if ( transformScaleStackSize == transformScaleStack.length ) {
+			float [] newStack = new float[ 2 * transformScaleStack.length ];
+			System.arraycopy( transformScaleStack, 0, newStack, 0, transformScaleStackSize );
+			transformScaleStack = newStack;
+		}
+		transformScaleStack[ transformScaleStackSize++ ] = transformScale;
+		transformScale *= t.getScale();
+	}
+
+	public void popTransform() {
+		surface.restore();
+		transformScale = transformScaleStack[ --transformScaleStackSize ];
+	}
+
+	// An offscreen layer of the surface, the size of the window, into which content that does not change from frame to frame
+	// can be drawn once, and then copied to the screen each frame (see beginLayer()).
+	private boolean hasLayer = false;
+	// What the layer was drawn with: the caller's version of its contents, and the camera.
+	private int layerContentVersion = -1;
+	private float layerOffsetXInPixels, layerOffsetYInPixels, layerScaleFactor;
+	private int layerWidthInPixels = 0, layerHeightInPixels = 0;
+
+	// Returns true if the layer was last drawn with the given version of its contents,
+	// and with the current camera and window size, in which case it can be drawn as is with drawLayer().
+	public boolean isLayerUpToDate( int contentVersion ) {
+		return hasLayer
+			&& layerContentVersion == contentVersion
+			&& layerOffsetXInPixels == offsetXInPixels
+			&& layerOffsetYInPixels == offsetYInPixels
+			&& layerScaleFactor == scaleFactorInWorldSpaceUnitsPerPixel
+			&& layerWidthInPixels == windowWidthInPixels
+			&& layerHeightInPixels == windowHeightInPixels;
+	}
+
+	// Clears the layer, and redirects subsequent drawing to it,
+	// in world space units, until endLayer() is called.
+	public void beginLayer() {
+		surface.beginLayer();
+		setCoordinateSystemToWorldSpaceUnits();
+	}
+
+	// Ends the drawing started by beginLayer(), remembering the given version of the layer's contents.
+	// Drawing is then done in world space units again.
+	public void endLayer( int contentVersion ) {
+		surface.endLayer();
+		hasLayer = true;
+		layerContentVersion = contentVersion;
+		layerOffsetXInPixels = offsetXInPixels;
+		layerOffsetYInPixels = offsetYInPixels;
+		layerScaleFactor = scaleFactorInWorldSpaceUnitsPerPixel;
+		layerWidthInPixels = windowWidthInPixels;
+		layerHeightInPixels = windowHeightInPixels;
+		setCoordinateSystemToWorldSpaceUnits();
+	}
+
+	// Copies the layer to the screen, leaving the coordinate system unchanged.
+	public void drawLayer() {
+		if ( hasLayer )
+			surface.drawLayer();
+	}
+
+	public boolean hasLayer() { return hasLayer; }
+
+	// Frees the memory used by the layer, which beginLayer() allocates again when needed.
+	public void releaseLayer() {
+		if ( surface != null )
+			surface.releaseLayer();
+		hasLayer = false;
+		layerContentVersion = -1;
 	}
 
 	public void clear( float r, float g, float b ) {
-		canvas.drawRGB( (int)(r*255), (int)(g*255), (int)(b*255) );
+		surface.clear( r, g, b );
 	}
 
 	public void setupForDrawing() {
@@ -204,37 +316,38 @@ class GraphicsWrapper {
 	}
 
 	public void setColor( float r, float g, float b ) {
-		paint.setARGB( 255, (int)(r*255), (int)(g*255), (int)(b*255) );
+		surface.setColor( r, g, b, 1 );
 	}
 
 	public void setColor( float r, float g, float b, float alpha ) {
-		paint.setARGB( (int)(alpha*255), (int)(r*255), (int)(g*255), (int)(b*255) );
+		surface.setColor( r, g, b, alpha );
 	}
 
 	public void setLineWidth( float width ) {
-		paint.setStrokeWidth( width );
+		surface.setLineWidth( width );
 	}
 
 	public void drawLine( float x1, float y1, float x2, float y2 ) {
-		canvas.drawLine( x1, y1, x2, y2, paint );
+		surface.drawLine( x1, y1, x2, y2 );
 	}
 
 	public void drawPolyline( ArrayList< Point2D > points, boolean isClosed, boolean isFilled ) {
 		if ( points.size() <= 1 )
 			return;
 
-		path.reset();
-		Point2D p = points.get(0);
-		path.moveTo( p.x(), p.y() );
-		for ( int i = 1; i < points.size(); ++i ) {
-			p = points.get(i);
-			path.lineTo( p.x(), p.y() );
+		if ( packedCoordinates.length < 2 * points.size() )
+			packedCoordinates = new float[ 2 * points.size() ];
+		for ( int i = 0; i < points.size(); ++i ) {
+			Point2D p = points.get(i);
+			packedCoordinates[ 2*i ] = p.x();
+			packedCoordinates[ 2*i+1 ] = p.y();
 		}
-		if ( isClosed )
-			path.close();
-		paint.setStyle( isFilled ? Paint.Style.FILL : Paint.Style.STROKE );
-		// TODO FIXME XXX or should i call path.setFillType() ?
-		canvas.drawPath( path, paint );
+		surface.drawPolyline( packedCoordinates, points.size(), isClosed, isFilled );
+	}
+
+	// Same as above, for points packed as x0, y0, x1, y1, ...
+	public void drawPolyline( float [] coordinates, int numPoints, boolean isClosed, boolean isFilled ) {
+		surface.drawPolyline( coordinates, numPoints, isClosed, isFilled );
 	}
 
 	public void drawPolyline( ArrayList< Point2D > points ) {
@@ -246,10 +359,26 @@ class GraphicsWrapper {
 	public void fillPolygon( ArrayList< Point2D > points ) {
 		drawPolyline( points, true, true );
 	}
+	public void fillPolygon( float [] coordinates, int numPoints ) {
+		drawPolyline( coordinates, numPoints, true, true );
+	}
+
+	// Same as above, but keeps the geometry prepared by the surface (such as a path) in the given holder,
+	// and only rebuilds it when the given version differs from the one it was built for.
+	// Since the geometry is in the same units as the points, and the current coordinate system
+	// is applied by the surface, panning and zooming do not require rebuilding it.
+	public void fillPolygon( float [] coordinates, int numPoints, RetainedGeometry retained, int version ) {
+		if ( surface.fillPolygon( coordinates, numPoints, retained, version ) )
+			++ numRetainedPathsBuilt;
+	}
+
+	// Counts the paths built by the above method, for example to check that panning does not rebuild any.
+	private int numRetainedPathsBuilt = 0;
+	public int getNumRetainedPathsBuilt() { return numRetainedPathsBuilt; }
+	public void resetNumRetainedPathsBuilt() { numRetainedPathsBuilt = 0; }
 
 	public void drawRect( float x, float y, float w, float h, boolean isFilled ) {
-		paint.setStyle( isFilled ? Paint.Style.FILL : Paint.Style.STROKE );
-		canvas.drawRect( x, y, x+w, y+h, paint );
+		surface.drawRect( x, y, w, h, isFilled );
 	}
 
 	public void drawRect( float x, float y, float w, float h ) {
@@ -261,8 +390,7 @@ class GraphicsWrapper {
 	}
 
 	public void drawCircle( float x, float y, float radius, boolean isFilled ) {
-		paint.setStyle( isFilled ? Paint.Style.FILL : Paint.Style.STROKE );
-		canvas.drawCircle( x, y, radius, paint );
+		surface.drawCircle( x, y, radius, isFilled );
 	}
 
 	public void drawCircle( float x, float y, float radius ) {
@@ -312,8 +440,7 @@ class GraphicsWrapper {
 	public float stringWidth( String s ) {
 		if ( s == null || s.length() == 0 ) return 0;
 
-		paint.getTextBounds( s, 0, s.length(), rect );
-		return rect.width();
+		return surface.stringWidth( s );
 	}
 
 
@@ -322,8 +449,7 @@ class GraphicsWrapper {
 		String s           // the string
 	) {
 		if ( s == null || s.length() == 0 ) return;
-		paint.setStyle( Paint.Style.FILL );
-		canvas.drawText( s, x, y, paint );
+		surface.drawString( x, y, s );
 	}
 
 
@@ -0,0 +1,92 @@
+package log350.example.example6;
+
+
+// Counts durations, in nanoseconds, in buckets whose width grows with the duration,
+// so that a small, fixed-size array covers everything from a few nanoseconds to minutes
+// with the same relative precision.
+//
+// Each power of two is split into SUB_BUCKETS_PER_POWER_OF_TWO equal buckets,
+// so a duration is known to within 1/SUB_BUCKETS_PER_POWER_OF_TWO of its value (25%).
+// Durations below 2*SUB_BUCKETS_PER_POWER_OF_TWO nanoseconds each have their own bucket.
+//
+// The buckets are allocated once, so recording a duration never allocates,
+// and is cheap enough to be done for every touch event and every phase of every frame.
+class LatencyHistogram {
+
+	static final int SUB_BUCKET_BITS = 2;
+	static final int SUB_BUCKETS_PER_POWER_OF_TWO = 1 << SUB_BUCKET_BITS;
+	// enough for every non-negative long
+	static final int NUM_BUCKETS = ( 64 - SUB_BUCKET_BITS ) * SUB_BUCKETS_PER_POWER_OF_TWO;
+
+	private long [] counts = new long[ NUM_BUCKETS ];
+	private long count = 0;
+	private long total = 0;
+	private long max = 0;
+
+	// Returns the index of the bucket of the given (non-negative) duration.
+	static int getBucketIndex( long duration ) {
+		if ( duration < SUB_BUCKETS_PER_POWER_OF_TWO )
+			return (int)duration;
+		int exponent = 63 - Long.numberOfLeadingZeros( duration );
+		int subBucket = (int)( duration >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS_PER_POWER_OF_TWO - 1 );
+		return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS_PER_POWER_OF_TWO + subBucket;
+	}
+
+	// Returns the smallest duration that falls in the given bucket.
+	static long getBucketLowerBound( int index ) {
+		if ( index < SUB_BUCKETS_PER_POWER_OF_TWO )
+			return index;
+		int exponent = index / SUB_BUCKETS_PER_POWER_OF_TWO + SUB_BUCKET_BITS - 1;
+		int subBucket = index % SUB_BUCKETS_PER_POWER_OF_TWO;
+		return (long)( SUB_BUCKETS_PER_POWER_OF_TWO + subBucket ) << ( exponent - SUB_BUCKET_BITS );
+	}
+
+	public void record( long duration ) {
+		if ( duration < 0 )
+			duration = 0;
+		++ counts[ getBucketIndex( duration ) ];
+		++ count;
+		total += duration;
+		if ( duration > max )
+			max = duration;
+	}
+
+	public long getCount() { return count; }
+	public long getTotal() { return total; }
+	public long getMax() { return max; }
+	public long getMean() { return count == 0 ? 0 : total / count; }
+
+	// Returns a duration that at least the given fraction (between 0 and 1) of the recorded durations do not exceed.
+	// This is the upper end of the bucket where the fraction is reached, so it may overestimate by up to 25%,
+	// but never exceeds the largest recorded duration.
+	public long getPercentile( double fraction ) {
+		if ( count == 0 )
+			return 0;
+		long target = (long)Math.ceil( fraction * count );
+		if ( target < 1 )
+			target = 1;
+		long cumulativeCount = 0;
+		for ( int i = 0; i < NUM_BUCKETS; ++i ) {
+			cumulativeCount += counts[ i ];
+			if ( cumulativeCount >= target )
+				return i + 1 == NUM_BUCKETS ? max : Math.min( getBucketLowerBound( i + 1 ) - 1, max );
+		}
+		return max;
+	}
+
+	// Adds the durations recorded by the given histogram to this one.
+	public void add( LatencyHistogram h ) {
+		for ( int i = 0; i < NUM_BUCKETS; ++i )
+			counts[ i ] += h.counts[ i ];
+		count += h.count;
+		total += h.total;
+		if ( h.max > max )
+			max = h.max;
+	}
+
+	public void reset() {
+		for ( int i = 0; i < NUM_BUCKETS; ++i )
+			counts[ i ] = 0;
+		count = total = max = 0;
+	}
+}
@@ -1,5 +1,7 @@
 package log350.example.example6;
 
+import java.io.File;
+
 import android.app.Activity;
 import android.os.Bundle;
 import android.view.Window;
@@ -15,6 +17,17 @@ import android.view.WindowManager;
  * @author Mathieu Villeneuve
  */
 public class Log350Example6Activity extends Activity {
+    // When true, the touch events are recorded into a file of the application's external storage
+    // every time the activity is in the foreground, so that they can be replayed later (see TouchTrace).
+    static final boolean RECORD_TOUCH_TRACES = false;
+    // When true, the timings of the touch events and of the frames are drawn over the drawing.
+    // They are written to the log whenever the activity leaves the foreground, in any case.
+    static final boolean SHOW_PERFORMANCE_OVERLAY = false;
+
+    // The shapes are saved in this file, in the application's private storage, whenever the activity
+    // leaves the foreground, and loaded from it when the activity is created.
+    static final String SCENE_FILE_NAME = "scene.bin";
+
     DrawingView drawView;
 
 	/** Called when the activity is first created. */
@@ -28,9 +41,30 @@ public class Log350Example6Activity extends Activity {
         
         //Setting the view
         drawView = new DrawingView(this);        
+        drawView.setDisplayRefreshRate(getWindowManager().getDefaultDisplay().getRefreshRate());
+        drawView.setShowingPerformanceOverlay(SHOW_PERFORMANCE_OVERLAY);
+        if ( ! drawView.loadScene( new File( getFilesDir(), SCENE_FILE_NAME ) ) )
+            drawView.addDemoShapes();
         setContentView(drawView);
         
         drawView.requestFocus();
     }
-}
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if ( RECORD_TOUCH_TRACES ) {
+            File directory = getExternalFilesDir( null );
+            if ( directory != null )
+                drawView.startTouchRecording( new File( directory, "touch-" + System.currentTimeMillis() + ".trace" ) );
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        drawView.stopTouchRecording();
+        drawView.logPerformanceReport();
+        drawView.saveScene( new File( getFilesDir(), SCENE_FILE_NAME ) );
+        super.onPause();
+    }
+}
@@ -0,0 +1,183 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+
+
+
+
+
+// This class stores the current position of a finger,
+// as well as the history of previous positions of that finger
+// during its drag.
+//
+// An instance of this class is created when a finger makes contact
+// with the multitouch surface, and is destroyed
+// when the finger is lifted off the multitouch surface.
+// By default, the instance only stores the first position of the finger
+// and its few most recent positions, so that its memory use does not grow during long drags.
+// Cursors that need the whole path of the finger (such as the one drawing a lasso)
+// must call keepFullPath(), which can also simplify the path as it is received.
+class MyCursor {
+	
+	// Each finger in contact with the multitouch surface is given
+	// a unique id by the framework (or computing platform).
+	// There is no guarantee that these ids will be consecutive nor increasing.
+	// For example, when two fingers are in contact with the multitouch surface,
+	// their ids may be 0 and 1, respectively,
+	// or their ids may be 14 and 9, respectively.
+	public int id; // identifier
+
+	// These store the history of positions of the "cursor" (finger)
+	// in pixel coordinates.
+	// The first position is where the finger pressed down,
+	// and the last position is the current position of the finger.
+	private float firstX, firstY;
+	private int numPositions = 0; // total number of positions added so far
+
+	// The most recent positions, packed as x, y in a fixed-size ring buffer.
+	static final int RECENT_HISTORY_SIZE = 4;
+	private float [] recentPositions = new float[ 2 * RECENT_HISTORY_SIZE ];
+
+	// The whole path of the finger.
+	// This is null unless keepFullPath() has been called.
+	private PathSimplifier path = null;
+
+	// The position of the finger before the latest batch of positions was added (see beginBatch()).
+	private float previousX, previousY;
+
+	// Returned by the getters below, and updated in place by them.
+	private Point2D firstPosition = new Point2D();
+	private Point2D currentPosition = new Point2D();
+	private Point2D previousPosition = new Point2D();
+
+
+
+	// These are used to store what the cursor is being used for.
+	public static final int TYPE_DRAGGING = 0; // the finger can be used for dragging objects, zooming, drawing a lasso, ...
+	public static final int TYPE_BUTTON = 1; // the finger is pressing a virtual button
+	public static final int TYPE_IGNORE = 2; // the finger should not be there and will be ignored
+	public static final int TYPE_CREATE = 3;
+	static final int NUM_TYPES = 4;
+	private int type = TYPE_IGNORE;
+
+	// Maintained by the CursorContainer storing this cursor, if any.
+	int indexInContainer = -1;
+	CursorContainer container = null;
+
+
+
+
+	public MyCursor( int id, float x, float y ) {
+		this.id = id;
+		firstX = previousX = x;
+		firstY = previousY = y;
+		addPosition( x, y );
+	}
+
+	// Marks the start of a new batch of positions.
+	// Until the next call, getPreviousPosition() returns the position the finger had at this call,
+	// so that a manipulation can be based on the whole displacement of the finger since then,
+	// however many intermediate positions were reported.
+	public void beginBatch() {
+		int k = 2 * ( ( numPositions-1 ) % RECENT_HISTORY_SIZE );
+		previousX = recentPositions[ k ];
+		previousY = recentPositions[ k+1 ];
+	}
+
+	// Causes all subsequent positions to be stored, in addition to the ones still in the history.
+	// Should be called before the cursor moves,
+	// since older positions may already have been dropped from the history.
+	// If the given tolerance (in pixels) is greater than zero,
+	// the path is simplified as it is received (see PathSimplifier),
+	// and is then never farther than the tolerance from the positions of the finger.
+	public void keepFullPath( float toleranceInPixels ) {
+		if ( path != null )
+			return;
+		path = new PathSimplifier( toleranceInPixels );
+		int n = Math.min( numPositions, RECENT_HISTORY_SIZE );
+		for ( int i = numPositions - n; i < numPositions; ++i ) {
+			int k = 2 * ( i % RECENT_HISTORY_SIZE );
+			path.add( recentPositions[ k ], recentPositions[ k+1 ] );
+		}
+	}
+	public boolean isKeepingFullPath() { return path != null; }
+
+	// Simplifies what remains of the path.
+	// Should be called once the finger has been lifted, before the path is used.
+	public void finishPath() {
+		if ( path != null )
+			path.finish();
+	}
+
+	// Returns the packed coordinates of the whole path (x0, y0, x1, y1, ...),
+	// or null if keepFullPath() has not been called.
+	// The array may be longer than 2*getPathSize().
+	public float [] getPathCoordinates() { return path == null ? null : path.getCoordinates(); }
+	public int getPathSize() { return path == null ? 0 : path.getNumPoints(); }
+
+	// Returns a copy of the stored positions:
+	// the whole path if keepFullPath() was called,
+	// otherwise the first position followed by the most recent ones.
+	public ArrayList< Point2D > getPositions() {
+		ArrayList< Point2D > positions = new ArrayList< Point2D >();
+		if ( path != null ) {
+			float [] coordinates = path.getCoordinates();
+			for ( int i = 0; i < path.getNumPoints(); ++i )
+				positions.add( new Point2D( coordinates[ 2*i ], coordinates[ 2*i+1 ] ) );
+		}
+		else {
+			int n = Math.min( numPositions, RECENT_HISTORY_SIZE );
+			if ( numPositions > n )
+				positions.add( new Point2D( firstX, firstY ) );
+			for ( int i = numPositions - n; i < numPositions; ++i ) {
+				int k = 2 * ( i % RECENT_HISTORY_SIZE );
+				positions.add( new Point2D( recentPositions[ k ], recentPositions[ k+1 ] ) );
+			}
+		}
+		return positions;
+	}
+
+	public void addPosition( float x, float y ) {
+		int k = 2 * ( numPositions % RECENT_HISTORY_SIZE );
+		recentPositions[ k ] = x;
+		recentPositions[ k+1 ] = y;
+		++ numPositions;
+		if ( path != null )
+			path.add( x, y );
+	}
+	public void addPosition( Point2D p ) {
+		addPosition( p.x(), p.y() );
+	}
+
+	// The following return points owned by the cursor,
+	// which are overwritten the next time the same method is called.
+	public Point2D getFirstPosition() {
+		if ( numPositions < 1 )
+			return null;
+		firstPosition.copy( firstX, firstY );
+		return firstPosition;
+	}
+	public Point2D getCurrentPosition() {
+		if ( numPositions < 1 )
+			return null;
+		int k = 2 * ( ( numPositions-1 ) % RECENT_HISTORY_SIZE );
+		currentPosition.copy( recentPositions[ k ], recentPositions[ k+1 ] );
+		return currentPosition;
+	}
+	// Returns the position of the finger at the last call to beginBatch().
+	public Point2D getPreviousPosition() {
+		if ( numPositions < 1 )
+			return null;
+		previousPosition.copy( previousX, previousY );
+		return previousPosition;
+	}
+
+
+	public int getType() { return type; }
+	public void setType( int type ) {
+		int oldType = this.type;
+		this.type = type;
+		if ( container != null && oldType != type )
+			container.cursorTypeChanged( this, oldType );
+	}
+}
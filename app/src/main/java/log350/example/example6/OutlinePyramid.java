@@ -0,0 +1,142 @@
+package log350.example.example6;
+
+
+// Simplified versions ("levels of detail") of the outline of a polygon,
+// from which the coarsest one that still looks the same at the current zoom can be drawn,
+// so that zoomed out shapes are not drawn with many more points than there are pixels to show them.
+//
+// Each level is computed from the full outline with the Douglas-Peucker algorithm,
+// and so is within its tolerance of the full outline.
+// The tolerances start at a small fraction of the size of the polygon, and double from one level to the next.
+// A level is only kept if it has clearly fewer points than the previous one kept,
+// and no level with fewer than 3 points is kept.
+class OutlinePyramid {
+
+	// The finest tolerance is the size of the polygon divided by this.
+	static final int RESOLUTION = 1024;
+	// A level is kept only if it has at most this fraction of the points of the previous level kept.
+	static final float MAX_FRACTION_OF_POINTS = 0.75f;
+
+	// Levels, from the finest to the coarsest.
+	// The points of each level are packed as x0, y0, x1, y1, ...
+	private float [][] levelCoordinates;
+	private int [] levelNumPoints;
+	private float [] levelTolerance;
+	private RetainedGeometry [] levelGeometry;
+	private int numLevels = 0;
+
+	// Returns the tolerance of the finest level that would be built for a polygon of the given size.
+	// Below this tolerance, the full outline must be drawn, so there is no need to build the pyramid.
+	public static float getFinestTolerance( float size ) {
+		return size / RESOLUTION;
+	}
+
+	// The size is the larger of the width and height of the polygon.
+	public OutlinePyramid( float [] coordinates, int numPoints, float size ) {
+		int maxNumLevels = 1;
+		for ( int r = RESOLUTION; r > 1; r /= 2 )
+			++ maxNumLevels;
+		levelCoordinates = new float[ maxNumLevels ][];
+		levelNumPoints = new int[ maxNumLevels ];
+		levelTolerance = new float[ maxNumLevels ];
+		levelGeometry = new RetainedGeometry[ maxNumLevels ];
+
+		boolean [] keep = new boolean[ numPoints ];
+		int [] stack = new int[ 2 * numPoints + 2 ];
+		int previousNumPoints = numPoints;
+		for ( float tolerance = getFinestTolerance( size ); tolerance < size && numLevels < maxNumLevels; tolerance *= 2 ) {
+			int n = simplify( coordinates, numPoints, tolerance, keep, stack );
+			if ( n < 3 )
+				break;
+			if ( n > previousNumPoints * MAX_FRACTION_OF_POINTS )
+				continue;
+			float [] c = new float[ 2 * n ];
+			int out = 0;
+			for ( int i = 0; i < numPoints; ++i ) {
+				if ( keep[ i ] ) {
+					c[ 2*out ] = coordinates[ 2*i ];
+					c[ 2*out+1 ] = coordinates[ 2*i+1 ];
+					++ out;
+				}
+			}
+			levelCoordinates[ numLevels ] = c;
+			levelNumPoints[ numLevels ] = n;
+			levelTolerance[ numLevels ] = tolerance;
+			levelGeometry[ numLevels ] = new RetainedGeometry();
+			++ numLevels;
+			previousNumPoints = n;
+		}
+	}
+
+	public int getNumLevels() { return numLevels; }
+
+	// Returns the coarsest level whose tolerance does not exceed the given error,
+	// or -1 if there is none, in which case the full outline should be drawn.
+	public int getCoarsestLevelWithin( float maxError ) {
+		int level = -1;
+		while ( level+1 < numLevels && levelTolerance[ level+1 ] <= maxError )
+			++ level;
+		return level;
+	}
+
+	public float [] getCoordinates( int level ) { return levelCoordinates[ level ]; }
+	public int getNumPoints( int level ) { return levelNumPoints[ level ]; }
+	public float getTolerance( int level ) { return levelTolerance[ level ]; }
+	// Holds what GraphicsWrapper prepares to draw the level.
+	public RetainedGeometry getRetainedGeometry( int level ) { return levelGeometry[ level ]; }
+
+	// Marks, in keep, the points of the closed polygon that are kept by the Douglas-Peucker algorithm
+	// with the given tolerance, and returns their number.
+	// The polygon is treated as a path from point 0 around to point 0 again,
+	// with index numPoints standing for point 0.
+	// An explicit stack is used instead of recursion, since polygons can have many points.
+	private static int simplify( float [] coordinates, int numPoints, float tolerance, boolean [] keep, int [] stack ) {
+		for ( int i = 0; i < numPoints; ++i )
+			keep[ i ] = false;
+		keep[ 0 ] = true;
+		int numKept = 1;
+		float toleranceSquared = tolerance * tolerance;
+
+		int top = 0;
+		stack[ top++ ] = 0;
+		stack[ top++ ] = numPoints;
+		while ( top > 0 ) {
+			int last = stack[ --top ];
+			int first = stack[ --top ];
+			int farthest = -1;
+			float farthestDistanceSquared = toleranceSquared;
+			for ( int i = first+1; i < last; ++i ) {
+				float d = distanceSquaredToSegment( coordinates, i, first, last % numPoints );
+				if ( d > farthestDistanceSquared ) {
+					farthest = i;
+					farthestDistanceSquared = d;
+				}
+			}
+			if ( farthest != -1 ) {
+				keep[ farthest ] = true;
+				++ numKept;
+				stack[ top++ ] = first;
+				stack[ top++ ] = farthest;
+				stack[ top++ ] = farthest;
+				stack[ top++ ] = last;
+			}
+		}
+		return numKept;
+	}
+
+	// Returns the squared distance from point p to the segment from point a to point b.
+	private static float distanceSquaredToSegment( float [] coordinates, int p, int a, int b ) {
+		float px = coordinates[ 2*p ], py = coordinates[ 2*p+1 ];
+		float ax = coordinates[ 2*a ], ay = coordinates[ 2*a+1 ];
+		float bx = coordinates[ 2*b ], by = coordinates[ 2*b+1 ];
+		float abx = bx - ax, aby = by - ay;
+		float apx = px - ax, apy = py - ay;
+		float lengthSquared = abx*abx + aby*aby;
+		float t = ( lengthSquared > 0 ) ? ( apx*abx + apy*aby ) / lengthSquared : 0;
+		if ( t < 0 ) t = 0;
+		else if ( t > 1 ) t = 1;
+		float dx = apx - t*abx;
+		float dy = apy - t*aby;
+		return dx*dx + dy*dy;
+	}
+}
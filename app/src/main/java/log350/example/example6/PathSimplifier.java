@@ -0,0 +1,175 @@
+package log350.example.example6;
+
+
+// Stores a path (a polyline) whose points arrive one at a time,
+// such as the path of a finger drawing a lasso,
+// and simplifies it as the points arrive,
+// so that it never holds many more points than are needed to describe its shape.
+//
+// Two simplifications are used, each allowed half of the tolerance:
+// - a point closer than half the tolerance to the last stored point is discarded ("radial distance");
+// - once enough points have accumulated since the last vertex that is known to be needed,
+//   those points are simplified with the Douglas-Peucker algorithm,
+//   which removes every point that is within half the tolerance of the simplified polyline.
+// The points that arrived after the last vertex kept by Douglas-Peucker are kept as they are,
+// since later points may still cause some of them to be needed.
+// So the stored path is always a simplified prefix followed by a short tail of raw points,
+// and it is always within the tolerance of the path that was received.
+//
+// With a tolerance of zero, every point is stored and no simplification is done.
+class PathSimplifier {
+
+	// The stored points, packed as x0, y0, x1, y1, ...
+	private float [] coordinates = new float[ 2 * 64 ];
+	private int numPoints = 0;
+	private int numPointsReceived = 0;
+
+	// Index of the first point of the tail, i.e. of the last point that is known to be a vertex.
+	// Points before it have already been simplified.
+	private int tailStart = 0;
+
+	private float tolerance;
+	private float halfToleranceSquared;
+
+	// Number of points in the tail that triggers a simplification of the tail.
+	static final int CHUNK_SIZE = 32;
+
+	// Used by the Douglas-Peucker algorithm, to avoid allocation and recursion.
+	private boolean [] keep = new boolean[ CHUNK_SIZE ];
+	private int [] stack = new int[ 2 * CHUNK_SIZE ];
+
+	public PathSimplifier( float tolerance ) {
+		this.tolerance = tolerance;
+		halfToleranceSquared = tolerance * tolerance / 4;
+	}
+
+	public float getTolerance() { return tolerance; }
+
+	// Returns the stored points, packed as x0, y0, x1, y1, ...
+	// The array may be longer than 2*getNumPoints(), and may be replaced by a later call to add().
+	public float [] getCoordinates() { return coordinates; }
+	public int getNumPoints() { return numPoints; }
+
+	// Returns the number of points passed to add(), including the discarded ones.
+	public int getNumPointsReceived() { return numPointsReceived; }
+
+	public void add( float x, float y ) {
+		++ numPointsReceived;
+		if ( tolerance > 0 && numPoints > 0 ) {
+			float dx = x - coordinates[ 2*(numPoints-1) ];
+			float dy = y - coordinates[ 2*(numPoints-1)+1 ];
+			if ( dx*dx + dy*dy < halfToleranceSquared )
+				return;
+		}
+		append( x, y );
+		if ( tolerance > 0 && numPoints - tailStart >= CHUNK_SIZE )
+			simplifyTail( false );
+	}
+
+	// Simplifies the remaining tail.
+	// Should be called once no more points will be added, for example when the finger is lifted.
+	public void finish() {
+		if ( tolerance > 0 && numPoints - tailStart > 2 )
+			simplifyTail( true );
+	}
+
+	private void append( float x, float y ) {
+		if ( 2 * ( numPoints + 1 ) > coordinates.length ) {
+			float [] newCoordinates = new float[ 2 * coordinates.length ];
+			System.arraycopy( coordinates, 0, newCoordinates, 0, 2 * numPoints );
+			coordinates = newCoordinates;
+		}
+		coordinates[ 2*numPoints ] = x;
+		coordinates[ 2*numPoints+1 ] = y;
+		++ numPoints;
+	}
+
+	// Runs Douglas-Peucker on the points from tailStart to the last point,
+	// and removes, in place, the points that are not needed.
+	// If isFinal is false, the raw points after the last interior vertex are kept,
+	// and become the new tail.
+	private void simplifyTail( boolean isFinal ) {
+		int n = numPoints - tailStart;
+		for ( int i = 0; i < n; ++i )
+			keep[ i ] = false;
+		keep[ 0 ] = keep[ n-1 ] = true;
+
+		int top = 0;
+		stack[ top++ ] = 0;
+		stack[ top++ ] = n-1;
+		while ( top > 0 ) {
+			int last = stack[ --top ];
+			int first = stack[ --top ];
+			int farthest = -1;
+			float farthestDistanceSquared = halfToleranceSquared;
+			for ( int i = first+1; i < last; ++i ) {
+				float d = distanceSquaredToSegment( tailStart+i, tailStart+first, tailStart+last );
+				if ( d > farthestDistanceSquared ) {
+					farthest = i;
+					farthestDistanceSquared = d;
+				}
+			}
+			if ( farthest != -1 ) {
+				keep[ farthest ] = true;
+				stack[ top++ ] = first;
+				stack[ top++ ] = farthest;
+				stack[ top++ ] = farthest;
+				stack[ top++ ] = last;
+			}
+		}
+
+		// The points from lastVertex onwards stay in the tail.
+		int lastVertex;
+		if ( isFinal ) {
+			lastVertex = n-1;
+		}
+		else {
+			lastVertex = n-2;
+			while ( ! keep[ lastVertex ] )
+				-- lastVertex;
+			if ( lastVertex == 0 ) {
+				// All the points are within half the tolerance of the segment joining the first and last points,
+				// so the last point can be made a vertex without exceeding the tolerance.
+				// Otherwise, the tail would keep growing while the finger moves in a straight line.
+				lastVertex = n-1;
+			}
+		}
+
+		// Compact the points in place: the kept points up to lastVertex, followed by the raw points after it.
+		int out = tailStart + 1;
+		for ( int i = 1; i <= lastVertex; ++i ) {
+			if ( keep[ i ] ) {
+				copyPoint( tailStart+i, out );
+				++ out;
+			}
+		}
+		int newTailStart = out - 1;
+		for ( int i = lastVertex+1; i < n; ++i ) {
+			copyPoint( tailStart+i, out );
+			++ out;
+		}
+		numPoints = out;
+		tailStart = newTailStart;
+	}
+
+	private void copyPoint( int from, int to ) {
+		coordinates[ 2*to ] = coordinates[ 2*from ];
+		coordinates[ 2*to+1 ] = coordinates[ 2*from+1 ];
+	}
+
+	// Returns the squared distance from point p to the segment from point a to point b.
+	private float distanceSquaredToSegment( int p, int a, int b ) {
+		float px = coordinates[ 2*p ], py = coordinates[ 2*p+1 ];
+		float ax = coordinates[ 2*a ], ay = coordinates[ 2*a+1 ];
+		float bx = coordinates[ 2*b ], by = coordinates[ 2*b+1 ];
+		float abx = bx - ax, aby = by - ay;
+		float apx = px - ax, apy = py - ay;
+		float lengthSquared = abx*abx + aby*aby;
+		float t = ( lengthSquared > 0 ) ? ( apx*abx + apy*aby ) / lengthSquared : 0;
+		if ( t < 0 ) t = 0;
+		else if ( t > 1 ) t = 1;
+		float dx = apx - t*abx;
+		float dy = apy - t*aby;
+		return dx*dx + dy*dy;
+	}
+}
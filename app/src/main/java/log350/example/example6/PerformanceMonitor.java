@@ -0,0 +1,200 @@
+package log350.example.example6;
+
+
+// Measures how long the application takes to handle each touch event, tagged by the mode
+// that handled it and the kind of event, and to draw each phase of each frame,
+// recording the durations in preallocated LatencyHistogram instances.
+//
+// Timing a phase is done by chaining calls that each read the clock once:
+//
+//    long t = monitor.startTimer();
+//    ... first phase ...
+//    t = monitor.recordPhase( PHASE_A, t );
+//    ... second phase ...
+//    t = monitor.recordPhase( PHASE_B, t );
+//
+// None of this allocates, so it can stay enabled all the time.
+// The results can be appended to a text report, for comparing runs offline,
+// or drawn over the window; the overlay's text is only rebuilt every few frames,
+// which keeps it readable and keeps its own cost low.
+class PerformanceMonitor {
+
+	// The phases of a frame.
+	static final int PHASE_MOTION = 0; // applying the motion of the fingers, see DrawingController.applyCursorMotion()
+	static final int PHASE_SELECTION_HULL = 1;
+	static final int PHASE_SHAPES = 2;
+	static final int PHASE_BUTTONS = 3;
+	static final int PHASE_HUD = 4; // the lasso, the text at the top, and this monitor's overlay
+	static final int PHASE_FRAME = 5; // the whole frame, including all of the above
+	static final int NUM_PHASES = 6;
+	static final String [] PHASE_NAMES = { "motion", "selection hull", "shapes", "buttons", "hud", "frame" };
+
+	// indexed by TouchBatch.ACTION_...
+	static final String [] ACTION_NAMES = { "down", "up", "move" };
+
+	static final int OVERLAY_REFRESH_INTERVAL_IN_FRAMES = 30;
+	static final int OVERLAY_FONT_HEIGHT = 20;
+
+	private FrameScheduler.Clock clock;
+	private boolean isEnabled = true;
+
+	private String [] modeNames;
+	// touchHistograms[ mode ][ action ]
+	private LatencyHistogram [][] touchHistograms;
+	private LatencyHistogram [] phaseHistograms = new LatencyHistogram[ NUM_PHASES ];
+
+	private String [] overlayLines;
+	private int numOverlayLines = 0;
+	private int numFramesSinceOverlayRefresh = OVERLAY_REFRESH_INTERVAL_IN_FRAMES;
+	private StringBuilder builder = new StringBuilder();
+
+	// The modes are the possible values of DrawingController.currentMode, named for the reports.
+	public PerformanceMonitor( FrameScheduler.Clock clock, String [] modeNames ) {
+		this.clock = clock;
+		this.modeNames = modeNames;
+		touchHistograms = new LatencyHistogram[ modeNames.length ][ ACTION_NAMES.length ];
+		for ( int m = 0; m < modeNames.length; ++m )
+			for ( int a = 0; a < ACTION_NAMES.length; ++a )
+				touchHistograms[ m ][ a ] = new LatencyHistogram();
+		for ( int p = 0; p < NUM_PHASES; ++p )
+			phaseHistograms[ p ] = new LatencyHistogram();
+		overlayLines = new String[ NUM_PHASES + modeNames.length * ACTION_NAMES.length ];
+	}
+
+	public boolean isEnabled() { return isEnabled; }
+	public void setEnabled( boolean isEnabled ) { this.isEnabled = isEnabled; }
+
+	// Returns the time at which a measurement starts.
+	public long startTimer() {
+		return isEnabled ? clock.nanoTime() : 0;
+	}
+
+	// Records the time elapsed since the given start time as one occurrence of the given phase,
+	// and returns the current time, which can be used as the start time of the next phase.
+	public long recordPhase( int phase, long startTime ) {
+		if ( ! isEnabled )
+			return 0;
+		long time = clock.nanoTime();
+		phaseHistograms[ phase ].record( time - startTime );
+		return time;
+	}
+
+	// Records the time elapsed since the given start time as the handling of a touch event
+	// of the given kind in the given mode.
+	public void recordTouch( int mode, int action, long startTime ) {
+		if ( ! isEnabled )
+			return;
+		long time = clock.nanoTime();
+		if ( 0 <= mode && mode < modeNames.length && 0 <= action && action < ACTION_NAMES.length )
+			touchHistograms[ mode ][ action ].record( time - startTime );
+	}
+
+	public LatencyHistogram getPhaseHistogram( int phase ) { return phaseHistograms[ phase ]; }
+	public LatencyHistogram getTouchHistogram( int mode, int action ) { return touchHistograms[ mode ][ action ]; }
+
+	public void reset() {
+		for ( int m = 0; m < modeNames.length; ++m )
+			for ( int a = 0; a < ACTION_NAMES.length; ++a )
+				touchHistograms[ m ][ a ].reset();
+		for ( int p = 0; p < NUM_PHASES; ++p )
+			phaseHistograms[ p ].reset();
+		numFramesSinceOverlayRefresh = OVERLAY_REFRESH_INTERVAL_IN_FRAMES;
+	}
+
+	// Appends one line per phase, and one per combination of mode and kind of event that occurred,
+	// each one giving the number of occurrences and the distribution of their durations, in microseconds.
+	public void appendReport( StringBuilder sb ) {
+		for ( int p = 0; p < NUM_PHASES; ++p ) {
+			sb.append( "draw  " );
+			appendPadded( sb, PHASE_NAMES[ p ], 28 );
+			appendSummary( sb, phaseHistograms[ p ] );
+			sb.append( '\n' );
+		}
+		for ( int m = 0; m < modeNames.length; ++m ) {
+			for ( int a = 0; a < ACTION_NAMES.length; ++a ) {
+				LatencyHistogram h = touchHistograms[ m ][ a ];
+				if ( h.getCount() == 0 )
+					continue;
+				sb.append( "touch " );
+				int start = sb.length();
+				sb.append( modeNames[ m ] ).append( ' ' ).append( ACTION_NAMES[ a ] );
+				while ( sb.length() - start < 28 )
+					sb.append( ' ' );
+				appendSummary( sb, h );
+				sb.append( '\n' );
+			}
+		}
+	}
+
+	public String getReport() {
+		StringBuilder sb = new StringBuilder();
+		appendReport( sb );
+		return sb.toString();
+	}
+
+	private static void appendPadded( StringBuilder sb, String s, int width ) {
+		sb.append( s );
+		for ( int i = s.length(); i < width; ++i )
+			sb.append( ' ' );
+	}
+
+	private static void appendSummary( StringBuilder sb, LatencyHistogram h ) {
+		sb.append( "n=" ).append( h.getCount() );
+		sb.append( " mean=" ); appendMicroseconds( sb, h.getMean() );
+		sb.append( " p50=" ); appendMicroseconds( sb, h.getPercentile( 0.50 ) );
+		sb.append( " p95=" ); appendMicroseconds( sb, h.getPercentile( 0.95 ) );
+		sb.append( " p99=" ); appendMicroseconds( sb, h.getPercentile( 0.99 ) );
+		sb.append( " max=" ); appendMicroseconds( sb, h.getMax() );
+	}
+
+	// Appends the given duration, in nanoseconds, as microseconds with one decimal.
+	private static void appendMicroseconds( StringBuilder sb, long nanoseconds ) {
+		long tenths = ( nanoseconds + 50 ) / 100;
+		sb.append( tenths / 10 ).append( '.' ).append( tenths % 10 );
+	}
+
+	// Draws the 95th percentile and the maximum of every phase, and of every combination
+	// of mode and kind of event that occurred, in the upper right corner of the window.
+	// The coordinate system must be in pixels.
+	public void drawOverlay( GraphicsWrapper gw ) {
+		if ( numFramesSinceOverlayRefresh >= OVERLAY_REFRESH_INTERVAL_IN_FRAMES ) {
+			numFramesSinceOverlayRefresh = 0;
+			refreshOverlay();
+		}
+		++ numFramesSinceOverlayRefresh;
+
+		float lineHeight = OVERLAY_FONT_HEIGHT * 1.2f;
+		float width = 24 * OVERLAY_FONT_HEIGHT;
+		float x0 = gw.getWidth() - width - 10, y0 = 10;
+		gw.setColor( 0.0f, 0.0f, 0.0f, 0.6f );
+		gw.fillRect( x0, y0, width, ( numOverlayLines + 1 ) * lineHeight );
+		gw.setFontHeight( OVERLAY_FONT_HEIGHT );
+		gw.setColor( 1.0f, 1.0f, 0.0f );
+		gw.drawString( x0 + 5, y0 + lineHeight, "p95 / max (us)" );
+		gw.setColor( 1.0f, 1.0f, 1.0f );
+		for ( int i = 0; i < numOverlayLines; ++i )
+			gw.drawString( x0 + 5, y0 + ( i + 2 ) * lineHeight, overlayLines[ i ] );
+	}
+
+	private void refreshOverlay() {
+		numOverlayLines = 0;
+		for ( int p = 0; p < NUM_PHASES; ++p )
+			refreshOverlayLine( PHASE_NAMES[ p ], null, phaseHistograms[ p ] );
+		for ( int m = 0; m < modeNames.length; ++m )
+			for ( int a = 0; a < ACTION_NAMES.length; ++a )
+				if ( touchHistograms[ m ][ a ].getCount() > 0 )
+					refreshOverlayLine( modeNames[ m ], ACTION_NAMES[ a ], touchHistograms[ m ][ a ] );
+	}
+
+	private void refreshOverlayLine( String name, String action, LatencyHistogram h ) {
+		builder.setLength( 0 );
+		builder.append( name );
+		if ( action != null )
+			builder.append( ' ' ).append( action );
+		builder.append( ": " );
+		appendMicroseconds( builder, h.getPercentile( 0.95 ) );
+		builder.append( " / " );
+		appendMicroseconds( builder, h.getMax() );
+		overlayLines[ numOverlayLines ++ ] = builder.toString();
+	}
+}
@@ -60,7 +60,9 @@ public class Point2D {
 	}
 
 	public float distance( Point2D otherPoint ) {
-		return diff( this, otherPoint ).length();
+		float dx = x() - otherPoint.x();
+		float dy = y() - otherPoint.y();
+		return (float)Math.sqrt( dx*dx + dy*dy );
 	}
 
 	static Point2D average( Point2D a, Point2D b ) {
@@ -68,5 +70,25 @@ public class Point2D {
 		return new Point2D( (a.x()+b.x())*0.5f, (a.y()+b.y())*0.5f );
 	}
 
+	// The following are equivalent to the above, but store their result
+	// in an object provided by the caller instead of allocating a new one.
+	// The result may be the same object as one of the arguments.
+
+	static public void diff( Point2D a, Point2D b, Vector2D result ) {
+		result.copy( a.x()-b.x(), a.y()-b.y() );
+	}
+
+	static public void sum( Point2D a, Vector2D b, Point2D result ) {
+		result.copy( a.x()+b.x(), a.y()+b.y() );
+	}
+
+	static public void diff( Point2D a, Vector2D b, Point2D result ) {
+		result.copy( a.x()-b.x(), a.y()-b.y() );
+	}
+
+	static public void average( Point2D a, Point2D b, Point2D result ) {
+		result.copy( (a.x()+b.x())*0.5f, (a.y()+b.y())*0.5f );
+	}
+
 }
 
@@ -1,41 +1,23 @@
 package log350.example.example6;
-import android.util.Log;
 
-import java.util.Arrays;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.ListIterator;
-
-
-
-// This is used to sort points by some "score",
-// which could be an angle or other metric associated with each point.
-class Point2DAndScore {
-	public Point2D point;
-	public float score;
-	public boolean isScorePositiveInfinity; // if true, ``score'' is ignored
-	public Point2DAndScore(Point2D p,float s,boolean isPosInf) {
-		point = p; score = s; isScorePositiveInfinity = isPosInf;
-	}
-}
-class Point2DAndScoreComparator implements Comparator<Point2DAndScore> {
-	public int compare( Point2DAndScore a, Point2DAndScore b ) {
-		if ( a.isScorePositiveInfinity ) {
-			if ( b.isScorePositiveInfinity ) return 0; // equal
-			else return 1; // a is greater
-		}
-		else if ( b.isScorePositiveInfinity ) {
-			return -1; // b is greater
-		}
-		else return (a.score<b.score) ? -1 : ( (a.score>b.score) ? 1 : 0 );
-	}
-}
 
 
 
 public class Point2DUtil {
 
+	// Scratch objects, reused by some of the methods below to avoid allocating on every call
+	// (these methods are called for every touch event during manipulation).
+	// Like the rest of the user interface code, these methods must only be called from one thread.
+	static private final Vector2D scratchVector1 = new Vector2D();
+	static private final Vector2D scratchVector2 = new Vector2D();
+	static private final Vector2D scratchTranslation = new Vector2D();
+	// returned by the methods below that return a translation
+	static private final Vector2D resultTranslation = new Vector2D();
+	static private final Point2D scratchRotationCenter = new Point2D();
+	static private final float [] scratchRotationAngle = new float[1];
+	static private final float [] scratchScaleFactor = new float[1];
+
 	static public Point2D computeCentroidOfPoints( ArrayList<Point2D> points ) {
 		float x = 0, y = 0;
 		for ( Point2D p : points ) {
@@ -80,11 +62,32 @@ public class Point2DUtil {
 		return returnValue;
 	}
 
+	// Same as above, for points packed as x0, y0, x1, y1, ...
+	static public boolean isPointInsidePolygon( float [] polygonCoordinates, int numPoints, float qx, float qy ) {
+		boolean returnValue = false;
+		int i, j;
+
+		for (i = 0, j = numPoints-1; i < numPoints; j = i++) {
+
+			float xi = polygonCoordinates[ 2*i ];
+			float yi = polygonCoordinates[ 2*i+1 ];
+			float xj = polygonCoordinates[ 2*j ];
+			float yj = polygonCoordinates[ 2*j+1 ];
+
+			if (
+				(((yi <= qy) && (qy < yj)) || ((yj <= qy) && (qy < yi)))
+				&& (qx < (xj - xi) * (qy - yi) / (yj - yi) + xi)
+			) {
+				returnValue = ! returnValue;
+			}
+		}
+		return returnValue;
+	}
+
 	// Returns the points on the convex hull in counter-clockwise order
-	// (assuming a coordinate system with x+ right and y+ up).
-	// Uses the well known algorithm "Graham's scan" for computing the convex hull in 2D,
-	// an algorithm nicely explained at
-	//    http://www.personal.kent.edu/~rmuhamma/Compgeometry/MyCG/ConvexHull/GrahamScan/grahamScan.htm
+	// (assuming a coordinate system with x+ right and y+ up),
+	// starting with the lowest point (or the leftmost of the lowest points, if there are several).
+	// Collinear points along the hull's edges, and duplicate points, are not included.
 	static public ArrayList< Point2D > computeConvexHull(
 		// input
 		ArrayList< Point2D > points
@@ -98,149 +101,147 @@ public class Point2DUtil {
 			return returnValue;
 		}
 
-		// There could be one or more points with minimal y coordinate.
-		// We'll call these the "bottom" points.
-		// Of these, we find the one with minimal x coordinate (the "bottom left" point)
-		// and maximal x coordinate (the "bottom right" point).
-		int indexOfBottomLeftPoint = 0;
-		Point2D bottomLeftPoint = points.get( 0 );
-		int indexOfBottomRightPoint = 0;
-		Point2D bottomRightPoint = points.get( 0 );
-		for ( int i = 1; i < points.size(); ++i ) {
-			Point2D candidatePoint = points.get( i );
-			if ( candidatePoint.y() < bottomLeftPoint.y() ) {
-				indexOfBottomLeftPoint = indexOfBottomRightPoint = i;
-				bottomLeftPoint = bottomRightPoint = candidatePoint;
-			}
-			else if ( candidatePoint.y() == bottomLeftPoint.y() ) {
-				if ( candidatePoint.x() < bottomLeftPoint.x() ) {
-					indexOfBottomLeftPoint = i;
-					bottomLeftPoint = candidatePoint;
-				}
-				else if ( candidatePoint.x() > bottomRightPoint.x() ) {
-					indexOfBottomRightPoint = i;
-					bottomRightPoint = candidatePoint;
-				}
-			}
-		}
-
-		// Imagine that for each point, we compute the point's angle with respect to bottomLeftPoint,
-		// and then sort the points by this angle.
-		// This is equivalent to sorting the points by their cotangent, which is faster to compute.
-		// Points with minimal y coordinate (i.e., "bottom" points)
-		// will be given a cotangent of +infinity and dealt with later.
-		Point2DAndScore [] pointsWithCotangents = new Point2DAndScore[ points.size() ];
+		float [] coordinates = new float[ 2 * points.size() ];
 		for ( int i = 0; i < points.size(); ++i ) {
 			Point2D p = points.get( i );
-			float delta_y = p.y() - bottomLeftPoint.y();
-			assert delta_y >= 0;
-			if ( delta_y == 0 ) {
-				pointsWithCotangents[i] = new Point2DAndScore( p, 0, true );
-			}
-			else {
-				float delta_x = p.x() - bottomLeftPoint.x();
-				pointsWithCotangents[i] = new Point2DAndScore( p, delta_x/delta_y /* the cotangent */, false );
-			}
+			coordinates[ 2*i ] = p.x();
+			coordinates[ 2*i+1 ] = p.y();
 		}
-		// sort the points by their cotangent
-		Arrays.sort(pointsWithCotangents, new Point2DAndScoreComparator());
-
-		// We'll need to be able to efficiently remove points from consideration,
-		// so we copy them into a linked list.
-		// In doing this, we also reverse the order of points
-		// (so they are in descending order of cotangent, i.e., in counter-clockwise order).
-		// The points with +infinity cotangent (i.e. the "bottom" points)
-		// can also be removed from consideration here,
-		// so long as we keep the "bottom left" and "bottom right" points.
-		LinkedList< Point2D > orderedPoints = new LinkedList< Point2D >();
-		orderedPoints.add( bottomLeftPoint );
-		// check if the "bottom left" and "bottom right" points are distinct
-		if ( indexOfBottomLeftPoint != indexOfBottomRightPoint )
-			orderedPoints.add( bottomRightPoint );
-		for ( int i = pointsWithCotangents.length - 1; i >= 0; --i ) {
-			if ( ! pointsWithCotangents[i].isScorePositiveInfinity ) {
-				orderedPoints.add( pointsWithCotangents[i].point );
-			}
+		int [] hullIndices = new int[ points.size() + 1 ];
+		int hullSize = computeConvexHull( coordinates, points.size(), hullIndices );
+
+		// copy the results to the appropriate output format
+		ArrayList< Point2D > returnValue = new ArrayList< Point2D >( hullSize );
+		for ( int i = 0; i < hullSize; ++i ) {
+			returnValue.add( points.get( hullIndices[ i ] ) );
 		}
+		return returnValue;
+	}
 
-		if ( orderedPoints.size() > 2 ) {
-			// We will loop through the ordered points, processing 3 consecutive points at a time.
-			// Two iterators are used to backup and move forward.
-			Point2D p0 = orderedPoints.get(0);
-			Point2D p1 = orderedPoints.get(1);
-			Point2D p2 = orderedPoints.get(2);
-			ListIterator< Point2D > it3 = orderedPoints.listIterator(3);
-			assert it3.nextIndex() == 3;
-			while ( true ) {
-				assert orderedPoints.size() > 2;
-				Vector2D v01 = new Vector2D( p1.x()-p0.x(), p1.y()-p0.y() );
-				Vector2D v12 = new Vector2D( p2.x()-p1.x(), p2.y()-p1.y() );
-
-				// Compute the z component of the cross product of v1 and v2
-				// (Note that the x and y components of the cross product are zero,
-				// because the z components of a and b are both zero)
-				float crossProduct_z = v01.x()*v12.y() - v01.y()*v12.x();
-
-				if ( crossProduct_z > 0 ) {
-					// we have a left turn; try to step forward
-					if ( it3.hasNext() ) {
-						p0 = p1;
-						p1 = p2;
-						p2 = it3.next();
-					}
-					else {
-						// we can't step forward
-						break;
-					}
-				}
-				else {
-					// Either we have a right-hand turn,
-					// or the points are collinear (with the 3rd point either in front, or behind, the 2nd)
-					// In any case, we remove the 2nd point from consideration and (try to) backup.
-					assert it3.hasPrevious();
-					it3.previous();
-					assert it3.hasPrevious();
-					it3.previous();
-					it3.remove(); // deletes the 2nd point
-					assert it3.hasNext();
-					it3.next(); // now the iterator is back to where it used to be
-
-					// now we try to backup
-					assert it3.hasPrevious();
-					it3.previous();
-					assert it3.hasPrevious();
-					it3.previous();
-					if ( it3.hasPrevious() ) {
-						p1 = p0;
-						p0 = it3.previous();
-						it3.next();
-						it3.next();
-						it3.next();
-					}
-					else {
-						it3.next();
-						it3.next();
-						// we step forward instead
-						if ( it3.hasNext() ) {
-							p1 = p2;
-							p2 = it3.next();
-						}
-						else {
-							// we can't move in either direction
-							break;
-						}
-					}
-				}
-			} // while
+	// Same as above, for points packed as x0, y0, x1, y1, ...
+	// Stores the indices of the points on the hull in the given array,
+	// which must have room for numPoints+1 elements, and returns the number of points on the hull.
+	//
+	// Uses Andrew's "monotone chain" algorithm, which sorts the points by x
+	// and then builds the lower and upper halves of the hull with a stack,
+	// in O(n log n) time and without allocating any objects per point.
+	static public int computeConvexHull(
+		// input
+		float [] coordinates, int numPoints,
+		// output
+		int [] hullIndices
+	) {
+		if ( numPoints < 3 ) {
+			for ( int i = 0; i < numPoints; ++i )
+				hullIndices[ i ] = i;
+			return numPoints;
 		}
 
-		// copy the results to the appropriate output format
-		ArrayList< Point2D > returnValue = new ArrayList< Point2D >();
+		int [] sortedIndices = new int[ numPoints ];
+		for ( int i = 0; i < numPoints; ++i )
+			sortedIndices[ i ] = i;
+		sortPointIndices( coordinates, sortedIndices, 0, numPoints - 1 );
+
+		// A point is popped from the stack unless it makes a strict left turn,
+		// which removes collinear and duplicate points.
+		int k = 0;
+		// lower hull, from left to right
+		for ( int i = 0; i < numPoints; ++i ) {
+			int p = sortedIndices[ i ];
+			while ( k >= 2 && crossProduct( coordinates, hullIndices[k-2], hullIndices[k-1], p ) <= 0 )
+				-- k;
+			hullIndices[ k++ ] = p;
+		}
+		// upper hull, from right to left
+		int lowerHullSize = k + 1;
+		for ( int i = numPoints - 2; i >= 0; --i ) {
+			int p = sortedIndices[ i ];
+			while ( k >= lowerHullSize && crossProduct( coordinates, hullIndices[k-2], hullIndices[k-1], p ) <= 0 )
+				-- k;
+			hullIndices[ k++ ] = p;
+		}
+		// The last point is the same as the first one.
+		-- k;
+		// If all the points are identical, only one is kept.
+		if ( k == 2 && comparePoints( coordinates, hullIndices[0], hullIndices[1] ) == 0 )
+			k = 1;
+
+		// Rotate the hull so that it starts with the lowest point (leftmost, in case of a tie).
+		int first = 0;
+		for ( int i = 1; i < k; ++i ) {
+			float y = coordinates[ 2*hullIndices[i]+1 ];
+			float firstY = coordinates[ 2*hullIndices[first]+1 ];
+			if ( y < firstY || ( y == firstY && coordinates[ 2*hullIndices[i] ] < coordinates[ 2*hullIndices[first] ] ) )
+				first = i;
+		}
+		if ( first > 0 ) {
+			System.arraycopy( hullIndices, 0, sortedIndices, 0, k );
+			for ( int i = 0; i < k; ++i )
+				hullIndices[ i ] = sortedIndices[ ( first + i ) % k ];
+		}
+		return k;
+	}
+
+	// Returns the z component of the cross product of (b-a) and (c-b),
+	// which is positive if a, b, c make a left turn.
+	static private float crossProduct( float [] coordinates, int a, int b, int c ) {
+		float ax = coordinates[ 2*a ], ay = coordinates[ 2*a+1 ];
+		float bx = coordinates[ 2*b ], by = coordinates[ 2*b+1 ];
+		float cx = coordinates[ 2*c ], cy = coordinates[ 2*c+1 ];
+		return (bx-ax)*(cy-by) - (by-ay)*(cx-bx);
+	}
+
+	// Compares points by x coordinate, then y coordinate.
+	static private int comparePoints( float [] coordinates, int a, int b ) {
+		float ax = coordinates[ 2*a ], bx = coordinates[ 2*b ];
+		if ( ax < bx ) return -1;
+		if ( ax > bx ) return 1;
+		float ay = coordinates[ 2*a+1 ], by = coordinates[ 2*b+1 ];
+		if ( ay < by ) return -1;
+		if ( ay > by ) return 1;
+		return 0;
+	}
 
-		for ( Point2D p : orderedPoints ) {
-			returnValue.add( p );
+	// Sorts indices[lo..hi] (inclusive) by the position of the points they refer to,
+	// breaking ties between duplicate points by index so that the result is deterministic.
+	static private void sortPointIndices( float [] coordinates, int [] indices, int lo, int hi ) {
+		while ( hi - lo > 16 ) {
+			int pivot = indices[ (lo + hi) >>> 1 ];
+			int i = lo, j = hi;
+			while ( i <= j ) {
+				while ( comparePointIndices( coordinates, indices[i], pivot ) < 0 ) ++ i;
+				while ( comparePointIndices( coordinates, indices[j], pivot ) > 0 ) -- j;
+				if ( i <= j ) {
+					int tmp = indices[i]; indices[i] = indices[j]; indices[j] = tmp;
+					++ i;
+					-- j;
+				}
+			}
+			// Recurse on the smaller part, and loop on the larger one, to bound the depth of recursion.
+			if ( j - lo < hi - i ) {
+				sortPointIndices( coordinates, indices, lo, j );
+				lo = i;
+			}
+			else {
+				sortPointIndices( coordinates, indices, i, hi );
+				hi = j;
+			}
+		}
+		// insertion sort for small ranges
+		for ( int i = lo + 1; i <= hi; ++i ) {
+			int index = indices[i];
+			int j = i - 1;
+			while ( j >= lo && comparePointIndices( coordinates, indices[j], index ) > 0 ) {
+				indices[j+1] = indices[j];
+				-- j;
+			}
+			indices[j+1] = index;
 		}
-		return returnValue;
+	}
+
+	static private int comparePointIndices( float [] coordinates, int a, int b ) {
+		int c = comparePoints( coordinates, a, b );
+		return ( c != 0 ) ? c : a - b;
 	}
 
 	static public ArrayList< Point2D > computeExpandedPolygon(
@@ -361,26 +362,71 @@ public class Point2DUtil {
 		return true;
 	}
 
-	// Translate points of the shape relatively to the translation of one finger on the shape
-	static public void translatePointsBasedOnDisplacementOfOnepoint(
-		ArrayList<Point2D> points,
-		// these should, of course, be in the same coordinate system as the points to transform
+	// Computes the translation applied by translatePointsBasedOnDisplacementOfOnepoint().
+	// The returned vector is owned by this class, and is overwritten by the next call,
+	// so the caller must copy it if it needs to keep it.
+	static public Vector2D computeTranslationBasedOnDisplacementOfOnePoint(
 		Point2D P_old,
 		Point2D P_new
 	) {
-		Vector2D v = Point2D.diff(P_old, P_new);
+		computeTranslationBasedOnDisplacementOfOnePoint( P_old, P_new, resultTranslation );
+		return resultTranslation;
+	}
 
-		Point2D newPoint = Point2D.sum(
-				P_new,
-				v.normalized()
+	// Same as above, without allocating.
+	static public void computeTranslationBasedOnDisplacementOfOnePoint(
+		Point2D P_old,
+		Point2D P_new,
+		Vector2D translation // output
+	) {
+		Point2D.diff( P_old, P_new, translation );
+		translation.normalize();
+
+		// The new point is P_new plus the normalized vector,
+		// and the translation goes from P_old to the new point.
+		translation.copy(
+			( P_new.x() + translation.x() ) - P_old.x(),
+			( P_new.y() + translation.y() ) - P_old.y()
 		);
+	}
 
-		Vector2D translation = Point2D.diff(newPoint, P_old);
+	// Translate points of the shape relatively to the translation of one finger on the shape.
+	// Returns the translation that was applied to the points,
+	// which, as above, is overwritten by the next call.
+	static public Vector2D translatePointsBasedOnDisplacementOfOnepoint(
+		ArrayList<Point2D> points,
+		// these should, of course, be in the same coordinate system as the points to transform
+		Point2D P_old,
+		Point2D P_new
+	) {
+		Vector2D translation = resultTranslation;
+		computeTranslationBasedOnDisplacementOfOnePoint( P_old, P_new, translation );
 
-		for (Point2D p : points) {
+		for ( int i = 0; i < points.size(); ++i ) {
+			Point2D p = points.get( i );
 			p.get()[0] = p.x() + translation.x();
 			p.get()[1] = p.y() + translation.y();
 		}
+		return translation;
+	}
+
+	// Same as above, for points packed as x0, y0, x1, y1, ...
+	// The translation that was applied is stored in the last argument.
+	static public void translatePointsBasedOnDisplacementOfOnepoint(
+		float [] coordinates, int numPoints,
+		Point2D P_old,
+		Point2D P_new,
+		Vector2D translation // output
+	) {
+		computeTranslationBasedOnDisplacementOfOnePoint( P_old, P_new, translation );
+		translatePoints( coordinates, numPoints, translation.x(), translation.y() );
+	}
+
+	static public void translatePoints( float [] coordinates, int numPoints, float dx, float dy ) {
+		for ( int i = 0; i < numPoints; ++i ) {
+			coordinates[ 2*i ] += dx;
+			coordinates[ 2*i+1 ] += dy;
+		}
 	}
 
 	// Imagine a sheet of paper on a horizontal surface,
@@ -440,15 +486,17 @@ public class Point2DUtil {
 		float [] scaleFactor
 	) {
 		// Compute midpoints of each pair of points
-		Point2D M1 = Point2D.average( A_old, B_old );
-		Point2D M2 = Point2D.average( A_new, B_new );
+		float M1x = (A_old.x()+B_old.x())*0.5f, M1y = (A_old.y()+B_old.y())*0.5f;
+		float M2x = (A_new.x()+B_new.x())*0.5f, M2y = (A_new.y()+B_new.y())*0.5f;
 
 		// This is the translation that the points should undergo.
-		translation.copy( Point2D.diff( M2, M1 ) );
+		translation.copy( M2x - M1x, M2y - M1y );
 
 		// Compute a vector associated with each pair of points.
-		Vector2D v1 = Point2D.diff( A_old, B_old );
-		Vector2D v2 = Point2D.diff( A_new, B_new );
+		Vector2D v1 = scratchVector1;
+		Vector2D v2 = scratchVector2;
+		Point2D.diff( A_old, B_old, v1 );
+		Point2D.diff( A_new, B_new, v2 );
 
 		float v1_length = v1.length();
 		float v2_length = v2.length();
@@ -457,7 +505,38 @@ public class Point2DUtil {
 			scaleFactor[0] = v2_length / v1_length;
 		rotationAngle[0] = Vector2D.computeSignedAngle( v1, v2 );
 
-		rotationCenter.copy( M2 );
+		rotationCenter.copy( M2x, M2y );
+	}
+
+	// Same as above, but stores the transformation that the points should undergo
+	// (the same one applied by transformPointsBasedOnDisplacementOfTwoPoints())
+	// in the given result, so that it can be applied later or composed with other transformations.
+	static public void compute2DTransformBasedOnDisplacementOfTwoPoints(
+		Point2D A_old, Point2D B_old,
+		Point2D A_new, Point2D B_new,
+		Transform2D result
+	) {
+		Vector2D translation = scratchTranslation;
+		Point2D rotationCenter = scratchRotationCenter;
+		float [] rotationAngle = scratchRotationAngle;
+		float [] scaleFactor = scratchScaleFactor;
+		compute2DTransformBasedOnDisplacementOfTwoPoints(
+			A_old, B_old, A_new, B_new,
+			translation, rotationCenter, rotationAngle, scaleFactor
+		);
+
+		float cosine = scaleFactor[0] * (float)Math.cos(rotationAngle[0]);
+		float sine = scaleFactor[0] * (float)Math.sin(rotationAngle[0]);
+
+		// The points are translated, then rotated and scaled around the rotation center.
+		float relativeX = translation.x() - rotationCenter.x();
+		float relativeY = translation.y() - rotationCenter.y();
+		result.m00 = cosine;
+		result.m01 = - sine;
+		result.m02 = cosine*relativeX - sine*relativeY + rotationCenter.x();
+		result.m10 = sine;
+		result.m11 = cosine;
+		result.m12 = sine*relativeX + cosine*relativeY + rotationCenter.y();
 	}
 
 	// This can be used to implement bimanual (2-handed) manipulation,
@@ -468,10 +547,10 @@ public class Point2DUtil {
 		Point2D A_old, Point2D B_old,
 		Point2D A_new, Point2D B_new
 	) {
-		Vector2D translation = new Vector2D();
-		Point2D rotationCenter = new Point2D();
-		float [] rotationAngle = new float[1];
-		float [] scaleFactor = new float[1];
+		Vector2D translation = scratchTranslation;
+		Point2D rotationCenter = scratchRotationCenter;
+		float [] rotationAngle = scratchRotationAngle;
+		float [] scaleFactor = scratchScaleFactor;
 		compute2DTransformBasedOnDisplacementOfTwoPoints(
 			A_old, B_old, A_new, B_new,
 			translation, rotationCenter, rotationAngle, scaleFactor
@@ -480,7 +559,8 @@ public class Point2DUtil {
 		float cosine = (float)Math.cos(rotationAngle[0]);
 		float sine = (float)Math.sin(rotationAngle[0]);
 
-		for ( Point2D p : points ) {
+		for ( int i = 0; i < points.size(); ++i ) {
+			Point2D p = points.get( i );
 			float relativeX = ( p.x() + translation.x() ) - rotationCenter.x();
 			float relativeY = ( p.y() + translation.y() ) - rotationCenter.y();
 			p.get()[0] = scaleFactor[0]*(cosine*relativeX - sine*relativeY) + rotationCenter.x();
@@ -489,6 +569,32 @@ public class Point2DUtil {
 
 	}
 
+	// Same as above, for points packed as x0, y0, x1, y1, ...
+	static public void transformPointsBasedOnDisplacementOfTwoPoints(
+		float [] coordinates, int numPoints,
+		Point2D A_old, Point2D B_old,
+		Point2D A_new, Point2D B_new
+	) {
+		Vector2D translation = scratchTranslation;
+		Point2D rotationCenter = scratchRotationCenter;
+		float [] rotationAngle = scratchRotationAngle;
+		float [] scaleFactor = scratchScaleFactor;
+		compute2DTransformBasedOnDisplacementOfTwoPoints(
+			A_old, B_old, A_new, B_new,
+			translation, rotationCenter, rotationAngle, scaleFactor
+		);
+
+		float cosine = (float)Math.cos(rotationAngle[0]);
+		float sine = (float)Math.sin(rotationAngle[0]);
+
+		for ( int i = 0; i < numPoints; ++i ) {
+			float relativeX = ( coordinates[ 2*i ] + translation.x() ) - rotationCenter.x();
+			float relativeY = ( coordinates[ 2*i+1 ] + translation.y() ) - rotationCenter.y();
+			coordinates[ 2*i ] = scaleFactor[0]*(cosine*relativeX - sine*relativeY) + rotationCenter.x();
+			coordinates[ 2*i+1 ] = scaleFactor[0]*(sine*relativeX + cosine*relativeY) + rotationCenter.y();
+		}
+	}
+
 
 
 	// Given a set of 2D orientations expressed as angles,
@@ -0,0 +1,133 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+
+
+// A polygon that has been preprocessed so that it can quickly answer
+// many point-in-polygon queries, for example when testing every vertex of many shapes against a lasso.
+//
+// The polygon's edges are sorted into horizontal slabs ("buckets") of equal height.
+// A query only examines the edges of the slab containing the point,
+// instead of every edge of the polygon,
+// and applies to them exactly the same test as Point2DUtil.isPointInsidePolygon(),
+// so both methods return the same results.
+//
+// The polygon must not be modified after it is prepared;
+// a new instance should be created instead.
+public class PreparedPolygon {
+
+	// For the (k)th edge, going from vertex j to vertex i,
+	// edges[4*k .. 4*k+3] contains xi, yi, xj, yj.
+	private float [] edges;
+
+	private AlignedRectangle2D bounds = new AlignedRectangle2D();
+	private float minY = 0;
+	private float bucketsPerUnit = 0; // inverse of the height of a bucket
+	private int numBuckets = 0;
+
+	// The edges crossing bucket b are bucketEdges[ bucketStart[b] .. bucketStart[b+1]-1 ]
+	private int [] bucketStart;
+	private int [] bucketEdges;
+
+	// Limits the memory used by polygons with many long edges.
+	private static final int MAX_NUM_BUCKETS = 4096;
+
+	public PreparedPolygon( ArrayList< Point2D > polygonPoints ) {
+		int n = polygonPoints.size();
+		float [] coordinates = new float[ 2 * n ];
+		for ( int i = 0; i < n; ++i ) {
+			Point2D p = polygonPoints.get(i);
+			coordinates[ 2*i ] = p.x();
+			coordinates[ 2*i+1 ] = p.y();
+		}
+		prepare( coordinates, n );
+	}
+
+	// The coordinates are given as x0, y0, x1, y1, ...
+	public PreparedPolygon( float [] coordinates, int numPoints ) {
+		prepare( coordinates, numPoints );
+	}
+
+	public AlignedRectangle2D getBoundingRectangle() { return bounds; }
+
+	private void prepare( float [] coordinates, int numPoints ) {
+		for ( int i = 0; i < numPoints; ++i )
+			bounds.bound( coordinates[ 2*i ], coordinates[ 2*i+1 ] );
+
+		// Keep only the edges that are not horizontal,
+		// since horizontal edges are never crossed by the ray used in the test.
+		edges = new float[ 4 * numPoints ];
+		int numEdges = 0;
+		for ( int i = 0, j = numPoints-1; i < numPoints; j = i++ ) {
+			float yi = coordinates[ 2*i+1 ];
+			float yj = coordinates[ 2*j+1 ];
+			if ( yi == yj )
+				continue;
+			edges[ 4*numEdges ] = coordinates[ 2*i ];
+			edges[ 4*numEdges+1 ] = yi;
+			edges[ 4*numEdges+2 ] = coordinates[ 2*j ];
+			edges[ 4*numEdges+3 ] = yj;
+			++ numEdges;
+		}
+
+		numBuckets = Math.max( 1, Math.min( numEdges, MAX_NUM_BUCKETS ) );
+		minY = bounds.isEmpty() ? 0 : bounds.getMin().y();
+		float height = bounds.isEmpty() ? 0 : bounds.getMax().y() - minY;
+		bucketsPerUnit = ( height > 0 ) ? numBuckets / height : 0;
+
+		// First count the edges crossing each bucket, then fill in the buckets.
+		bucketStart = new int[ numBuckets + 1 ];
+		for ( int k = 0; k < numEdges; ++k ) {
+			int b0 = bucketOf( Math.min( edges[ 4*k+1 ], edges[ 4*k+3 ] ) );
+			int b1 = bucketOf( Math.max( edges[ 4*k+1 ], edges[ 4*k+3 ] ) );
+			for ( int b = b0; b <= b1; ++b )
+				bucketStart[ b+1 ] ++;
+		}
+		for ( int b = 0; b < numBuckets; ++b )
+			bucketStart[ b+1 ] += bucketStart[ b ];
+		bucketEdges = new int[ bucketStart[ numBuckets ] ];
+		int [] fill = new int[ numBuckets ];
+		for ( int k = 0; k < numEdges; ++k ) {
+			int b0 = bucketOf( Math.min( edges[ 4*k+1 ], edges[ 4*k+3 ] ) );
+			int b1 = bucketOf( Math.max( edges[ 4*k+1 ], edges[ 4*k+3 ] ) );
+			for ( int b = b0; b <= b1; ++b )
+				bucketEdges[ bucketStart[b] + fill[b]++ ] = k;
+		}
+	}
+
+	private int bucketOf( float y ) {
+		int b = (int)( ( y - minY ) * bucketsPerUnit );
+		if ( b < 0 ) return 0;
+		if ( b >= numBuckets ) return numBuckets - 1;
+		return b;
+	}
+
+	public boolean contains( float qx, float qy ) {
+		if ( ! ( bounds.getMin().x() <= qx && qx <= bounds.getMax().x()
+			&& minY <= qy && qy <= bounds.getMax().y() )
+		) {
+			return false;
+		}
+		// See Point2DUtil.isPointInsidePolygon() for an explanation of this test.
+		boolean returnValue = false;
+		int b = bucketOf( qy );
+		for ( int e = bucketStart[b]; e < bucketStart[b+1]; ++e ) {
+			int k = 4 * bucketEdges[e];
+			float xi = edges[ k ];
+			float yi = edges[ k+1 ];
+			float xj = edges[ k+2 ];
+			float yj = edges[ k+3 ];
+			if (
+				(((yi <= qy) && (qy < yj)) || ((yj <= qy) && (qy < yi)))
+				&& (qx < (xj - xi) * (qy - yi) / (yj - yi) + xi)
+			) {
+				returnValue = ! returnValue;
+			}
+		}
+		return returnValue;
+	}
+
+	public boolean contains( Point2D q ) {
+		return contains( q.x(), q.y() );
+	}
+}
@@ -0,0 +1,263 @@
+package log350.example.example6;
+
+
+// A surface that does not draw anything, and does not depend on Android.
+//
+// It keeps track of the current transformation as a canvas would,
+// and counts the drawing commands it receives and the points they contain,
+// so that the drawing code can be run and timed on a plain Java virtual machine.
+// It can also keep a log of the commands, as text, with their coordinates converted to pixels
+// (for example, to compare what two versions of the drawing code draw).
+// Keeping the log allocates memory and takes time, so it is off by default.
+class RecordingSurface implements DrawingSurface {
+
+	private int width, height;
+
+	// The current transformation, and those saved by save().
+	private Transform2D transform = new Transform2D();
+	private Transform2D [] savedTransforms = new Transform2D[ 8 ];
+	private int numSavedTransforms = 0;
+	// Used to apply translate() and scale() to the current transformation.
+	private Transform2D scratchTransform = new Transform2D();
+
+	private int color = 0xff000000; // as 0xAARRGGBB
+	private int fontHeight = 14;
+
+	private boolean isDrawingLayer = false;
+	private boolean hasLayer = false;
+
+	private int numCommands = 0;
+	private int numPoints = 0;
+	private int numLayerCommands = 0;
+
+	private StringBuilder log = null;
+
+	public RecordingSurface( int width, int height ) {
+		setSize( width, height );
+	}
+
+	public void setSize( int width, int height ) {
+		this.width = width;
+		this.height = height;
+	}
+
+	public int getWidth() { return width; }
+	public int getHeight() { return height; }
+
+	public void setKeepingLog( boolean isKeepingLog ) {
+		log = isKeepingLog ? new StringBuilder() : null;
+	}
+	// Returns the commands received since the log was last cleared, one per line, or null if the log is off.
+	public String getLog() { return log == null ? null : log.toString(); }
+
+	// Number of commands received since the last call to resetStatistics(),
+	// including those drawn into the layer, which are also counted separately.
+	public int getNumCommands() { return numCommands; }
+	// Number of points (or corners, for rectangles) in the commands received.
+	public int getNumPoints() { return numPoints; }
+	public int getNumLayerCommands() { return numLayerCommands; }
+
+	public void resetStatistics() {
+		numCommands = numPoints = numLayerCommands = 0;
+		if ( log != null )
+			log.setLength( 0 );
+	}
+
+	public void setTransformToIdentity() {
+		transform.setToIdentity();
+	}
+
+	public void translate( float dx, float dy ) {
+		scratchTransform.setToIdentity();
+		scratchTransform.m02 = dx;
+		scratchTransform.m12 = dy;
+		concat( scratchTransform );
+	}
+
+	public void scale( float s ) {
+		scratchTransform.setToIdentity();
+		scratchTransform.m00 = s;
+		scratchTransform.m11 = s;
+		concat( scratchTransform );
+	}
+
+	// Like Canvas.concat(), the given transformation is applied to coordinates before the current one.
+	public void concat( Transform2D t ) {
+		scratchTransform.copy( t );
+		scratchTransform.preConcatenate( transform );
+		transform.copy( scratchTransform );
+	}
+
+	public void save() {
+		if ( numSavedTransforms == savedTransforms.length ) {
+			Transform2D [] newSavedTransforms = new Transform2D[ 2 * savedTransforms.length ];
+			System.arraycopy( savedTransforms, 0, newSavedTransforms, 0, numSavedTransforms );
+			savedTransforms = newSavedTransforms;
+		}
+		if ( savedTransforms[ numSavedTransforms ] == null )
+			savedTransforms[ numSavedTransforms ] = new Transform2D();
+		savedTransforms[ numSavedTransforms++ ].copy( transform );
+	}
+
+	public void restore() {
+		transform.copy( savedTransforms[ --numSavedTransforms ] );
+	}
+
+	public void setColor( float r, float g, float b, float alpha ) {
+		color = ( (int)(alpha*255) << 24 ) | ( (int)(r*255) << 16 ) | ( (int)(g*255) << 8 ) | (int)(b*255);
+	}
+
+	// Line widths are not recorded.
+	public void setLineWidth( float width ) {
+	}
+
+	public void setFontHeight( int height ) {
+		fontHeight = height;
+	}
+
+	public void clear( float r, float g, float b ) {
+		beginCommand( "clear", 0 );
+		endCommand();
+	}
+
+	public void drawLine( float x1, float y1, float x2, float y2 ) {
+		beginCommand( "line", 2 );
+		logPoint( x1, y1 );
+		logPoint( x2, y2 );
+		endCommand();
+	}
+
+	public void drawPolyline( float [] coordinates, int numPoints, boolean isClosed, boolean isFilled ) {
+		if ( numPoints <= 1 )
+			return;
+		beginCommand( isFilled ? "fillPolygon" : ( isClosed ? "polygon" : "polyline" ), numPoints );
+		logBounds( coordinates, numPoints );
+		endCommand();
+	}
+
+	// The prepared geometry is a copy of the points.
+	public boolean fillPolygon( float [] coordinates, int numPoints, RetainedGeometry retained, int version ) {
+		if ( numPoints <= 1 )
+			return false;
+		boolean isRebuilt = false;
+		float [] retainedCoordinates = ( retained.handle instanceof float[] ) ? (float[])retained.handle : null;
+		if ( retainedCoordinates == null || retained.version != version ) {
+			if ( retainedCoordinates == null || retainedCoordinates.length < 2 * numPoints ) {
+				retainedCoordinates = new float[ 2 * numPoints ];
+				retained.handle = retainedCoordinates;
+			}
+			System.arraycopy( coordinates, 0, retainedCoordinates, 0, 2 * numPoints );
+			retained.version = version;
+			isRebuilt = true;
+		}
+		beginCommand( "fillPolygon", numPoints );
+		logBounds( retainedCoordinates, numPoints );
+		endCommand();
+		return isRebuilt;
+	}
+
+	public void drawRect( float x, float y, float w, float h, boolean isFilled ) {
+		beginCommand( isFilled ? "fillRect" : "rect", 4 );
+		logPoint( x, y );
+		logPoint( x+w, y+h );
+		endCommand();
+	}
+
+	public void drawCircle( float x, float y, float radius, boolean isFilled ) {
+		beginCommand( isFilled ? "fillCircle" : "circle", 1 );
+		logPoint( x, y );
+		if ( log != null )
+			log.append( " r=" ).append( Math.round( radius * transform.getScale() ) );
+		endCommand();
+	}
+
+	// Approximates the width of the characters by a fixed fraction of the font height.
+	public float stringWidth( String s ) {
+		if ( s == null ) return 0;
+		return 0.6f * fontHeight * s.length();
+	}
+
+	public void drawString( float x, float y, String s ) {
+		if ( s == null || s.length() == 0 ) return;
+		beginCommand( "string", 1 );
+		logPoint( x, y );
+		if ( log != null )
+			log.append( " \"" ).append( s ).append( '"' );
+		endCommand();
+	}
+
+	// The layer itself is not stored, only whether it was drawn.
+	public void beginLayer() {
+		isDrawingLayer = true;
+		setTransformToIdentity();
+		beginCommand( "beginLayer", 0 );
+		endCommand();
+	}
+
+	public void endLayer() {
+		beginCommand( "endLayer", 0 );
+		endCommand();
+		isDrawingLayer = false;
+		hasLayer = true;
+		setTransformToIdentity();
+	}
+
+	public void drawLayer() {
+		if ( ! hasLayer )
+			return;
+		beginCommand( "drawLayer", 0 );
+		endCommand();
+	}
+
+	public void releaseLayer() {
+		hasLayer = false;
+	}
+
+	private void beginCommand( String name, int numPointsInCommand ) {
+		++ numCommands;
+		numPoints += numPointsInCommand;
+		if ( isDrawingLayer )
+			++ numLayerCommands;
+		if ( log != null ) {
+			if ( isDrawingLayer )
+				log.append( "  " );
+			log.append( name );
+			if ( numPointsInCommand > 0 ) {
+				log.append( " #" ).append( Integer.toHexString( color ) );
+				if ( numPointsInCommand > 2 )
+					log.append( " n=" ).append( numPointsInCommand );
+			}
+		}
+	}
+
+	private void endCommand() {
+		if ( log != null )
+			log.append( '\n' );
+	}
+
+	// Appends the given point, in pixels, rounded to the nearest pixel.
+	private void logPoint( float x, float y ) {
+		if ( log == null )
+			return;
+		log.append( " (" ).append( Math.round( transform.transformX( x, y ) ) )
+			.append( ',' ).append( Math.round( transform.transformY( x, y ) ) ).append( ')' );
+	}
+
+	// Appends the bounds of the given points, in pixels.
+	private void logBounds( float [] coordinates, int numPoints ) {
+		if ( log == null )
+			return;
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for ( int i = 0; i < numPoints; ++i ) {
+			float x = transform.transformX( coordinates[ 2*i ], coordinates[ 2*i+1 ] );
+			float y = transform.transformY( coordinates[ 2*i ], coordinates[ 2*i+1 ] );
+			if ( x < minX ) minX = x;
+			if ( x > maxX ) maxX = x;
+			if ( y < minY ) minY = y;
+			if ( y > maxY ) maxY = y;
+		}
+		log.append( " [" ).append( Math.round( minX ) ).append( ',' ).append( Math.round( minY ) )
+			.append( " - " ).append( Math.round( maxX ) ).append( ',' ).append( Math.round( maxY ) ).append( ']' );
+	}
+}
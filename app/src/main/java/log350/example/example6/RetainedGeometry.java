@@ -0,0 +1,22 @@
+package log350.example.example6;
+
+
+// Holds geometry that GraphicsWrapper has prepared for drawing (such as a path built from a polygon's points),
+// so that it can be reused from one frame to the next instead of being rebuilt.
+//
+// The owner of the geometry (such as a shape) keeps one instance of this class,
+// and passes it to GraphicsWrapper along with a version number
+// that must change whenever the geometry changes.
+// The contents are opaque to the owner, so that the owner does not depend on the platform's graphics classes.
+class RetainedGeometry {
+
+	// Set and used only by GraphicsWrapper.
+	Object handle = null;
+	int version = -1;
+
+	// Frees the prepared geometry, which will be rebuilt if it is drawn again.
+	public void release() {
+		handle = null;
+		version = -1;
+	}
+}
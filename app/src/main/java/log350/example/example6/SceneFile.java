@@ -0,0 +1,315 @@
+package log350.example.example6;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+
+// Saves the shapes of a ShapeContainer in a compact binary file, and loads them back.
+//
+// The format is, in little-endian byte order:
+//
+//    header: int MAGIC, int VERSION, int number of shapes, int flags (currently 0)
+//    table:  for each shape, 24 bytes:
+//            int number of points, int offset of the shape's points from the start of the data section,
+//            float min x, float min y, float max x, float max y (the bounds of the points)
+//    data:   for each shape, for each point, x then y, each coordinate stored as the difference
+//            between the bits of the float (Float.floatToIntBits()) and those of the same coordinate
+//            of the previous point of the shape (or 0, for the first point),
+//            as a zigzag-encoded variable-length integer, as in TouchTrace
+//
+// Differences between the bits of nearby floats are small, so the points usually take
+// 2 or 3 bytes per coordinate instead of 4, and are restored exactly.
+//
+// A file is opened by mapping it into memory, and the shapes created from it only decode
+// their points the first time they are needed (see Shape): until then, the bounds in the table
+// are enough to build the container's spatial index (all at once, see ShapeContainer.addShapes()),
+// cull the shapes, and draw them as dots when zoomed out. So opening a scene does not read most of its points,
+// and the points that are never looked at are never copied onto the heap.
+class SceneFile {
+
+	static final int MAGIC = 0x43534646; // "FFSC", in little-endian order
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 16;
+	static final int TABLE_ENTRY_SIZE = 24;
+
+	// Size of the buffer through which files are written.
+	static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+	private ByteBuffer buffer;
+	private int numShapes;
+	private int dataOffset;
+
+	private SceneFile( ByteBuffer buffer ) throws IOException {
+		this.buffer = buffer;
+		buffer.order( ByteOrder.LITTLE_ENDIAN );
+		if ( buffer.capacity() < HEADER_SIZE || buffer.getInt( 0 ) != MAGIC )
+			throw new IOException( "not a scene file" );
+		int version = buffer.getInt( 4 );
+		if ( version != VERSION )
+			throw new IOException( "unsupported scene file version " + version );
+		numShapes = buffer.getInt( 8 );
+		if ( numShapes < 0 || numShapes > ( buffer.capacity() - HEADER_SIZE ) / TABLE_ENTRY_SIZE )
+			throw new IOException( "corrupted scene file: bad number of shapes" );
+		dataOffset = HEADER_SIZE + numShapes * TABLE_ENTRY_SIZE;
+
+		// Check the table once, so that the points of every shape lie within the data section.
+		// The points themselves are only checked when decoded, see decodePoints().
+		for ( int i = 0; i < numShapes; ++i ) {
+			int numPoints = getNumPoints( i );
+			int offset = getDataOffset( i );
+			int end = getDataEnd( i );
+			// every coordinate takes at least one byte
+			if ( numPoints < 0 || offset < 0 || end > getDataSize() || offset > end || ( end - offset ) / 2 < numPoints )
+				throw new IOException( "corrupted scene file: bad entry for shape " + i );
+		}
+	}
+
+	// Maps the given file into memory.
+	public static SceneFile open( File file ) throws IOException {
+		RandomAccessFile f = new RandomAccessFile( file, "r" );
+		try {
+			FileChannel channel = f.getChannel();
+			// the mapping stays valid after the channel is closed
+			return new SceneFile( channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() ) );
+		}
+		finally {
+			f.close();
+		}
+	}
+
+	public int getNumShapes() { return numShapes; }
+
+	private int getTableEntryOffset( int shapeIndex ) { return HEADER_SIZE + shapeIndex * TABLE_ENTRY_SIZE; }
+
+	public int getNumPoints( int shapeIndex ) {
+		return buffer.getInt( getTableEntryOffset( shapeIndex ) );
+	}
+
+	private int getDataSize() { return buffer.capacity() - dataOffset; }
+
+	// Returns where the encoded points of the given shape start, and end, from the start of the data section.
+	private int getDataOffset( int shapeIndex ) {
+		return buffer.getInt( getTableEntryOffset( shapeIndex ) + 4 );
+	}
+	private int getDataEnd( int shapeIndex ) {
+		return ( shapeIndex + 1 < numShapes ) ? getDataOffset( shapeIndex + 1 ) : getDataSize();
+	}
+
+	// Adds all the shapes of the file to the given container, without decoding their points.
+	public void addShapesTo( ShapeContainer container ) {
+		ArrayList< Shape > shapes = new ArrayList< Shape >( numShapes );
+		for ( int i = 0; i < numShapes; ++i ) {
+			int entry = getTableEntryOffset( i );
+			shapes.add( new Shape(
+				this, i, buffer.getInt( entry ),
+				buffer.getFloat( entry + 8 ), buffer.getFloat( entry + 12 ),
+				buffer.getFloat( entry + 16 ), buffer.getFloat( entry + 20 )
+			) );
+		}
+		container.addShapes( shapes );
+	}
+
+	// Returns the packed coordinates of the points of the given shape (x0, y0, x1, y1, ...).
+	// Throws an IOException if they are not exactly 2 * getNumPoints() varints of at most 5 bytes
+	// filling the shape's part of the data section.
+	public float [] decodePoints( int shapeIndex ) throws IOException {
+		int numPoints = getNumPoints( shapeIndex );
+		int position = dataOffset + getDataOffset( shapeIndex );
+		int end = dataOffset + getDataEnd( shapeIndex );
+		float [] coordinates = new float[ 2 * numPoints ];
+		int previousX = 0, previousY = 0;
+		for ( int i = 0; i < 2 * numPoints; ++i ) {
+			// read a varint
+			int n = 0;
+			for ( int shift = 0; ; shift += 7 ) {
+				if ( position >= end || shift > 28 )
+					throw new IOException( "corrupted scene file: bad points for shape " + shapeIndex );
+				int b = buffer.get( position ++ );
+				n |= ( b & 0x7f ) << shift;
+				if ( ( b & 0x80 ) == 0 )
+					break;
+			}
+			int delta = ( n >>> 1 ) ^ -( n & 1 );
+			if ( ( i & 1 ) == 0 ) {
+				previousX += delta;
+				coordinates[ i ] = Float.intBitsToFloat( previousX );
+			}
+			else {
+				previousY += delta;
+				coordinates[ i ] = Float.intBitsToFloat( previousY );
+			}
+		}
+		if ( position != end )
+			throw new IOException( "corrupted scene file: bad points for shape " + shapeIndex );
+		return coordinates;
+	}
+
+	// The shapes of a container as they were when the snapshot was taken,
+	// which save() can then write on another thread while the container keeps changing.
+	// Shapes whose points were not decoded, and which have not moved, since they were loaded
+	// only keep a reference to their encoded points, which are copied to the new file as they are.
+	// The other shapes keep a copy of their points in world space; their transforms are not baked.
+	static class Snapshot {
+		private int numShapes;
+		private SceneFile [] sources;
+		private int [] indicesInSources;
+		private float [][] coordinates;
+
+		public Snapshot( ShapeContainer container ) {
+			numShapes = container.shapes.size();
+			sources = new SceneFile[ numShapes ];
+			indicesInSources = new int[ numShapes ];
+			coordinates = new float[ numShapes ][];
+			for ( int i = 0; i < numShapes; ++i ) {
+				Shape s = container.shapes.get( i );
+				sources[ i ] = s.getUnmodifiedSceneFile();
+				if ( sources[ i ] != null )
+					indicesInSources[ i ] = s.getIndexInSceneFile();
+				else {
+					coordinates[ i ] = new float[ 2 * s.getNumPoints() ];
+					s.copyCoordinates( coordinates[ i ], 0 );
+				}
+			}
+		}
+	}
+
+	// Writes the shapes of the given container to the given file, replacing it.
+	public static void save( ShapeContainer container, File file ) throws IOException {
+		save( new Snapshot( container ), file );
+	}
+
+	// Writes the given shapes to the given file, replacing it.
+	// The file is first written under another name, and only replaces the previous one once complete,
+	// so that an interrupted save does not lose the previous scene.
+	// Saves to the same file must not run at the same time.
+	public static void save( Snapshot snapshot, File file ) throws IOException {
+		int numShapes = snapshot.numShapes;
+		ByteBuffer table = ByteBuffer.allocate( numShapes * TABLE_ENTRY_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+		ByteBuffer out = ByteBuffer.allocateDirect( WRITE_BUFFER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+
+		File temporaryFile = new File( file.getPath() + ".tmp" );
+		RandomAccessFile f = new RandomAccessFile( temporaryFile, "rw" );
+		try {
+			FileChannel channel = f.getChannel();
+			channel.truncate( 0 );
+			int tableOffset = HEADER_SIZE;
+			long dataOffset = tableOffset + (long)numShapes * TABLE_ENTRY_SIZE;
+			channel.position( dataOffset );
+
+			long dataSize = 0;
+			for ( int i = 0; i < numShapes; ++i ) {
+				long shapeOffset = dataSize;
+				SceneFile source = snapshot.sources[ i ];
+				if ( source != null ) {
+					// copy the encoded points and the bounds from the file the shape was loaded from
+					int index = snapshot.indicesInSources[ i ];
+					ByteBuffer encodedPoints = source.getEncodedPoints( index );
+					dataSize += encodedPoints.remaining();
+					write( encodedPoints, out, channel );
+					int entry = source.getTableEntryOffset( index );
+					table.putInt( source.getNumPoints( index ) ).putInt( (int)shapeOffset );
+					table.putFloat( source.buffer.getFloat( entry + 8 ) ).putFloat( source.buffer.getFloat( entry + 12 ) );
+					table.putFloat( source.buffer.getFloat( entry + 16 ) ).putFloat( source.buffer.getFloat( entry + 20 ) );
+				}
+				else {
+					float [] coordinates = snapshot.coordinates[ i ];
+					int numPoints = coordinates.length / 2;
+					float minX = 0, minY = 0, maxX = 0, maxY = 0;
+					int previousX = 0, previousY = 0;
+					for ( int j = 0; j < numPoints; ++j ) {
+						float x = coordinates[ 2*j ], y = coordinates[ 2*j+1 ];
+						if ( j == 0 ) {
+							minX = maxX = x;
+							minY = maxY = y;
+						}
+						else {
+							minX = Math.min( minX, x ); maxX = Math.max( maxX, x );
+							minY = Math.min( minY, y ); maxY = Math.max( maxY, y );
+						}
+						int bitsX = Float.floatToIntBits( x ), bitsY = Float.floatToIntBits( y );
+						if ( out.remaining() < 10 )
+							flush( out, channel );
+						dataSize += writeVarint( out, zigzag( bitsX - previousX ) );
+						dataSize += writeVarint( out, zigzag( bitsY - previousY ) );
+						previousX = bitsX;
+						previousY = bitsY;
+					}
+					table.putInt( numPoints ).putInt( (int)shapeOffset );
+					table.putFloat( minX ).putFloat( minY ).putFloat( maxX ).putFloat( maxY );
+				}
+				if ( dataSize > Integer.MAX_VALUE - dataOffset )
+					throw new IOException( "scene too large to be saved" );
+			}
+			flush( out, channel );
+
+			ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+			header.putInt( MAGIC ).putInt( VERSION ).putInt( numShapes ).putInt( 0 );
+			header.flip();
+			writeFully( header, channel, 0 );
+			table.flip();
+			writeFully( table, channel, tableOffset );
+			channel.force( false );
+		}
+		finally {
+			f.close();
+		}
+		if ( ! temporaryFile.renameTo( file ) ) {
+			temporaryFile.delete();
+			throw new IOException( "cannot replace " + file );
+		}
+	}
+
+	// Returns a buffer whose remaining bytes are the encoded points of the given shape.
+	// The buffer shares the mapped file, but not its position, so it can be read on any thread.
+	private ByteBuffer getEncodedPoints( int shapeIndex ) {
+		ByteBuffer b = buffer.duplicate();
+		b.limit( dataOffset + getDataEnd( shapeIndex ) );
+		b.position( dataOffset + getDataOffset( shapeIndex ) );
+		return b;
+	}
+
+	// Writes the remaining bytes of the given buffer, through the output buffer if they fit in it.
+	private static void write( ByteBuffer b, ByteBuffer out, FileChannel channel ) throws IOException {
+		if ( b.remaining() > out.remaining() ) {
+			flush( out, channel );
+			if ( b.remaining() > out.remaining() ) {
+				while ( b.hasRemaining() )
+					channel.write( b );
+				return;
+			}
+		}
+		out.put( b );
+	}
+
+	private static void flush( ByteBuffer out, FileChannel channel ) throws IOException {
+		out.flip();
+		while ( out.hasRemaining() )
+			channel.write( out );
+		out.clear();
+	}
+
+	private static void writeFully( ByteBuffer b, FileChannel channel, long position ) throws IOException {
+		while ( b.hasRemaining() )
+			position += channel.write( b, position );
+	}
+
+	private static int zigzag( int n ) { return ( n << 1 ) ^ ( n >> 31 ); }
+
+	// Returns the number of bytes written.
+	private static int writeVarint( ByteBuffer out, int n ) {
+		int numBytes = 1;
+		while ( ( n & ~0x7f ) != 0 ) {
+			out.put( (byte)( ( n & 0x7f ) | 0x80 ) );
+			n >>>= 7;
+			++ numBytes;
+		}
+		out.put( (byte)n );
+		return numBytes;
+	}
+}
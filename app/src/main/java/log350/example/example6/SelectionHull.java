@@ -0,0 +1,143 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+
+
+// Caches the polygon drawn around the currently selected shapes,
+// which is the convex hull of their points, expanded by a margin.
+//
+// The polygon is only recomputed when the selection changes,
+// or when the points of a selected shape change.
+// To detect this, the hull remembers which shapes it was computed from,
+// and the geometry version of each of them at that time.
+class SelectionHull {
+
+	// The expanded hull, packed as x0, y0, x1, y1, ...
+	private float [] coordinates = new float[ 0 ];
+	private int numPoints = 0;
+
+	// Built lazily by contains(), and discarded whenever the polygon changes.
+	private PreparedPolygon preparedPolygon = null;
+
+	// Incremented whenever the polygon changes, and used to know when the path retained to draw it must be rebuilt.
+	private int version = 0;
+	private RetainedGeometry retainedGeometry = new RetainedGeometry();
+
+	// The shapes from which the hull was computed, and their geometry versions at the time.
+	private Shape [] shapes = new Shape[ 0 ];
+	private int [] shapeVersions = new int[ 0 ];
+	private int numShapes = 0;
+	private boolean isValid = false;
+
+	// Reused when recomputing the hull.
+	private float [] shapeCoordinates = new float[ 0 ];
+	private int [] hullIndices = new int[ 0 ];
+
+	public void invalidate() { isValid = false; }
+
+	public boolean isUpToDate( ArrayList< Shape > selectedShapes ) {
+		if ( ! isValid || numShapes != selectedShapes.size() )
+			return false;
+		for ( int i = 0; i < numShapes; ++i ) {
+			Shape s = selectedShapes.get( i );
+			if ( s != shapes[ i ] || s.getGeometryVersion() != shapeVersions[ i ] )
+				return false;
+		}
+		return true;
+	}
+
+	// Returns the packed coordinates of the expanded hull of the given shapes,
+	// recomputing it only if necessary.
+	// The array may be longer than 2*getNumPoints().
+	public float [] getCoordinates( ArrayList< Shape > selectedShapes ) {
+		if ( ! isUpToDate( selectedShapes ) )
+			recompute( selectedShapes );
+		return coordinates;
+	}
+
+	// Only valid after a call to getCoordinates() or contains().
+	public int getNumPoints() { return numPoints; }
+
+	// Draws the expanded hull of the given shapes, recomputing it only if necessary.
+	public void fill( GraphicsWrapper gw, ArrayList< Shape > selectedShapes ) {
+		getCoordinates( selectedShapes );
+		gw.fillPolygon( coordinates, numPoints, retainedGeometry, version );
+	}
+
+	public boolean contains( ArrayList< Shape > selectedShapes, Point2D p ) {
+		if ( ! isUpToDate( selectedShapes ) )
+			recompute( selectedShapes );
+		if ( preparedPolygon == null )
+			preparedPolygon = new PreparedPolygon( coordinates, numPoints );
+		return preparedPolygon.contains( p );
+	}
+
+	// Applies the given transformation to the given shapes (see Shape.transformBy()).
+	// If the hull was up to date, it is transformed along with them instead of being recomputed.
+	public void transformShapes( ArrayList< Shape > selectedShapes, Transform2D t ) {
+		boolean wasUpToDate = isUpToDate( selectedShapes );
+		for ( int i = 0; i < selectedShapes.size(); ++i )
+			selectedShapes.get( i ).transformBy( t );
+		if ( ! wasUpToDate )
+			return;
+
+		t.transformPoints( coordinates, numPoints );
+		preparedPolygon = null;
+		++ version;
+		for ( int i = 0; i < numShapes; ++i )
+			shapeVersions[ i ] = shapes[ i ].getGeometryVersion();
+	}
+
+	private void recompute( ArrayList< Shape > selectedShapes ) {
+		// Remember the shapes and their versions
+		numShapes = selectedShapes.size();
+		if ( shapes.length < numShapes ) {
+			shapes = new Shape[ numShapes ];
+			shapeVersions = new int[ numShapes ];
+		}
+		int totalNumPoints = 0;
+		for ( int i = 0; i < numShapes; ++i ) {
+			Shape s = selectedShapes.get( i );
+			shapes[ i ] = s;
+			shapeVersions[ i ] = s.getGeometryVersion();
+			totalNumPoints += s.getNumPoints();
+		}
+		for ( int i = numShapes; i < shapes.length; ++i )
+			shapes[ i ] = null;
+
+		// Gather the points of all the shapes
+		if ( shapeCoordinates.length < 2 * totalNumPoints ) {
+			shapeCoordinates = new float[ 2 * totalNumPoints ];
+			hullIndices = new int[ totalNumPoints + 1 ];
+		}
+		AlignedRectangle2D rect = new AlignedRectangle2D();
+		int n = 0;
+		for ( int i = 0; i < numShapes; ++i ) {
+			Shape s = shapes[ i ];
+			// the shape may be being manipulated, so its transform is not baked
+			s.copyCoordinates( shapeCoordinates, 2 * n );
+			n += s.getNumPoints();
+			rect.bound( s.getBoundingRectangle() );
+		}
+
+		int hullSize = Point2DUtil.computeConvexHull( shapeCoordinates, n, hullIndices );
+		ArrayList< Point2D > hull = new ArrayList< Point2D >( hullSize );
+		for ( int i = 0; i < hullSize; ++i ) {
+			int k = hullIndices[ i ];
+			hull.add( new Point2D( shapeCoordinates[ 2*k ], shapeCoordinates[ 2*k+1 ] ) );
+		}
+		ArrayList< Point2D > expanded = Point2DUtil.computeExpandedPolygon( hull, rect.getDiagonal().length()/30 );
+
+		numPoints = expanded.size();
+		if ( coordinates.length < 2 * numPoints )
+			coordinates = new float[ 2 * numPoints ];
+		for ( int i = 0; i < numPoints; ++i ) {
+			Point2D p = expanded.get( i );
+			coordinates[ 2*i ] = p.x();
+			coordinates[ 2*i+1 ] = p.y();
+		}
+		preparedPolygon = null;
+		++ version;
+		isValid = true;
+	}
+}
@@ -1,19 +1,139 @@
-
 package log350.example.example6;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 class Shape {
-	private ArrayList< Point2D > points = new ArrayList< Point2D >(); // in world space
+	// The points of the shape, packed as x0, y0, x1, y1, ...
+	// Storing them in a single array of primitives, rather than as one Point2D per point,
+	// saves memory and garbage collection work on scenes with many points.
+	// The points are in world space once transformed by the transform below.
+	private float [] coordinates;
+	private int numPoints;
+
+	// For a shape loaded from a SceneFile, the file and the index of the shape in it,
+	// until the points are decoded (the coordinates above are null until then).
+	private SceneFile sceneFile = null;
+	private int indexInSceneFile = -1;
+
+	// Maps the stored points to world space.
+	// Manipulating the shape only updates this transform, which takes constant time,
+	// instead of rewriting every point.
+	// The transform is applied to the stored points ("baked") by bakeTransform(),
+	// which is done when a manipulation ends, or when a caller needs the points in world space.
+	private Transform2D transform = new Transform2D();
+
+	// Incremented whenever the points change in world space
+	// (but not when the transform is baked, since this does not move the points).
+	private int geometryVersion = 0;
+
+	// Incremented whenever the stored points change, which happens less often than the above,
+	// since manipulations only change the transform.
+	// Used to know when the path retained for drawing the shape must be rebuilt.
+	private int storedPointsVersion = 0;
+	private RetainedGeometry retainedGeometry = new RetainedGeometry();
+
+	// These are maintained by the ShapeContainer holding this shape.
+	int indexInContainer = -1;
+	BoundingBoxTree.Node nodeInTree = null;
+
+	// The active group this shape belongs to, if any, maintained by the group.
+	ShapeGroup group = null;
+
+	// Cached bounds of the points in world space, recomputed lazily when invalid.
+	// While the transform includes a rotation, these are the bounds of the transformed corners
+	// of the stored points' bounds, which contain the shape but may be slightly larger than needed.
+	private AlignedRectangle2D boundingRectangle = new AlignedRectangle2D();
+	private boolean isBoundingRectangleValid = false;
+	// Cached bounds of the stored points, before the transform.
+	private AlignedRectangle2D localBoundingRectangle = new AlignedRectangle2D();
+	private boolean isLocalBoundingRectangleValid = false;
+
+	// Shapes with at least this many points are prepared for fast point-in-polygon queries.
+	static final int MIN_NUM_POINTS_FOR_PREPARED_POLYGON = 64;
+	// Built lazily from the stored points, and discarded whenever they change
+	// (so it survives manipulations, which only change the transform).
+	private PreparedPolygon preparedPolygon = null;
+
+	// Shapes with at least this many points are drawn with fewer points when zoomed out.
+	static final int MIN_NUM_POINTS_FOR_OUTLINE_PYRAMID = 16;
+	// Built lazily from the stored points, the first time the shape is drawn zoomed out enough to need it,
+	// and discarded whenever they change.
+	private OutlinePyramid outlinePyramid = null;
+
+	// Scratch objects reused by every shape, to avoid allocating on every manipulation event.
+	private static final Vector2D scratchTranslation = new Vector2D();
+	private static final Transform2D scratchTransform = new Transform2D();
+
+	// Built lazily by the deprecated getPoints(), and rebuilt after the points change.
+	private ArrayList< Point2D > pointsView = null;
+	private int pointsViewVersion = -1;
 
 	public Shape( ArrayList< Point2D > points ) {
-		for ( Point2D p : points ) {
-			this.points.add( p );
+		numPoints = points.size();
+		coordinates = new float[ 2 * numPoints ];
+		for ( int i = 0; i < numPoints; ++i ) {
+			Point2D p = points.get(i);
+			coordinates[ 2*i ] = p.x();
+			coordinates[ 2*i+1 ] = p.y();
+		}
+	}
+
+	// Creates a shape whose points are decoded from the given file only when first needed,
+	// given the bounds of the points, which the file stores separately.
+	Shape( SceneFile sceneFile, int indexInSceneFile, int numPoints, float minX, float minY, float maxX, float maxY ) {
+		this.sceneFile = sceneFile;
+		this.indexInSceneFile = indexInSceneFile;
+		this.numPoints = numPoints;
+		localBoundingRectangle.clear();
+		if ( numPoints > 0 ) {
+			localBoundingRectangle.bound( minX, minY );
+			localBoundingRectangle.bound( maxX, maxY );
+		}
+		isLocalBoundingRectangleValid = true;
+	}
+
+	private void decodePoints() {
+		if ( coordinates == null ) {
+			try {
+				coordinates = sceneFile.decodePoints( indexInSceneFile );
+			}
+			catch ( IOException e ) {
+				// The file was damaged after it was opened, or in a way that the table does not show.
+				// Use the corners of the stored bounds instead, so that the shape stays where the index expects it.
+				// The number of points does not change, since callers may already rely on it:
+				// a shape with fewer than 4 points uses opposite corners first, and the last corner is repeated as needed.
+				coordinates = new float[ 2 * numPoints ];
+				if ( numPoints > 0 ) {
+					Point2D min = localBoundingRectangle.getMin(), max = localBoundingRectangle.getMax();
+					float [] corners = { min.x(), min.y(), max.x(), min.y(), max.x(), max.y(), min.x(), max.y() };
+					for ( int i = 0; i < numPoints; ++i ) {
+						int k = ( numPoints == 2 && i == 1 ) ? 2 : Math.min( i, 3 );
+						coordinates[ 2*i ] = corners[ 2*k ];
+						coordinates[ 2*i+1 ] = corners[ 2*k+1 ];
+					}
+				}
+			}
+			sceneFile = null;
 		}
 	}
 
 	public boolean contains( Point2D p /* in world space */ ) {
-		return Point2DUtil.isPointInsidePolygon( points, p );
+		if ( ! getBoundingRectangle().contains( p ) )
+			return false;
+		// Rather than transforming the points, bring the query point back to where the stored points are.
+		float qx = p.x(), qy = p.y();
+		if ( ! transform.isIdentity() ) {
+			qx = transform.inverseTransformX( p.x(), p.y() );
+			qy = transform.inverseTransformY( p.x(), p.y() );
+		}
+		decodePoints();
+		if ( numPoints >= MIN_NUM_POINTS_FOR_PREPARED_POLYGON ) {
+			if ( preparedPolygon == null )
+				preparedPolygon = new PreparedPolygon( coordinates, numPoints );
+			return preparedPolygon.contains( qx, qy );
+		}
+		return Point2DUtil.isPointInsidePolygon( coordinates, numPoints, qx, qy );
 	}
 
 	public void draw( GraphicsWrapper gw, boolean highlight ) {
@@ -21,28 +141,213 @@ class Shape {
 			gw.setColor( 1.0f, 0.5f, 0.5f, 0.9f );
 		else
 			gw.setColor( 1.0f, 1.0f, 1.0f, 0.6f );
-		gw.fillPolygon( points );
+		if ( transform.isIdentity() ) {
+			drawOutline( gw, gw.getSizeOfPixelInCurrentUnits() );
+		}
+		else {
+			float sizeOfPixel = gw.getSizeOfPixelInCurrentUnits() / transform.getScale();
+			gw.pushTransform( transform );
+			drawOutline( gw, sizeOfPixel );
+			gw.popTransform();
+		}
 	}
 
+	// Draws the stored points, with no more detail than can be seen,
+	// given the size of a pixel in the units of the stored points.
+	private void drawOutline( GraphicsWrapper gw, float sizeOfPixel ) {
+		AlignedRectangle2D localBounds = getLocalBoundingRectangle();
+		if ( localBounds.isEmpty() )
+			return;
+		float width = localBounds.getMax().x() - localBounds.getMin().x();
+		float height = localBounds.getMax().y() - localBounds.getMin().y();
+		if ( width < sizeOfPixel && height < sizeOfPixel ) {
+			// The whole shape fits within a pixel, so its outline cannot be seen: a dot is drawn instead.
+			float centerX = ( localBounds.getMin().x() + localBounds.getMax().x() ) / 2;
+			float centerY = ( localBounds.getMin().y() + localBounds.getMax().y() ) / 2;
+			gw.fillRect( centerX - sizeOfPixel/2, centerY - sizeOfPixel/2, sizeOfPixel, sizeOfPixel );
+			return;
+		}
+		decodePoints();
+		// Points that are off by less than half a pixel would be drawn in the same place.
+		float maxError = sizeOfPixel / 2;
+		float size = Math.max( width, height );
+		if ( numPoints >= MIN_NUM_POINTS_FOR_OUTLINE_PYRAMID && maxError >= OutlinePyramid.getFinestTolerance( size ) ) {
+			if ( outlinePyramid == null )
+				outlinePyramid = new OutlinePyramid( coordinates, numPoints, size );
+			int level = outlinePyramid.getCoarsestLevelWithin( maxError );
+			if ( level >= 0 ) {
+				gw.fillPolygon(
+					outlinePyramid.getCoordinates( level ), outlinePyramid.getNumPoints( level ),
+					outlinePyramid.getRetainedGeometry( level ), storedPointsVersion
+				);
+				return;
+			}
+		}
+		gw.fillPolygon( coordinates, numPoints, retainedGeometry, storedPointsVersion );
+	}
+
+	// The returned rectangle is owned by the shape, and must not be modified by the caller.
 	public AlignedRectangle2D getBoundingRectangle() {
-		AlignedRectangle2D rect = new AlignedRectangle2D();
-		for ( Point2D p : points ) {
-			rect.bound( p );
+		if ( ! isBoundingRectangleValid ) {
+			AlignedRectangle2D localBounds = getLocalBoundingRectangle();
+			if ( transform.isIdentity() ) {
+				boundingRectangle.clear();
+				if ( ! localBounds.isEmpty() ) {
+					boundingRectangle.bound( localBounds.getMin() );
+					boundingRectangle.bound( localBounds.getMax() );
+				}
+			}
+			else {
+				transform.transformBounds( localBounds, boundingRectangle );
+			}
+			isBoundingRectangleValid = true;
+		}
+		return boundingRectangle;
+	}
+
+	private AlignedRectangle2D getLocalBoundingRectangle() {
+		if ( ! isLocalBoundingRectangleValid ) {
+			decodePoints();
+			localBoundingRectangle.clear();
+			for ( int i = 0; i < numPoints; ++i ) {
+				localBoundingRectangle.bound( coordinates[ 2*i ], coordinates[ 2*i+1 ] );
+			}
+			isLocalBoundingRectangleValid = true;
 		}
-		return rect;
+		return localBoundingRectangle;
+	}
+
+	// Must be called by any code that modifies the coordinates of this shape in place
+	// without going through the methods of this class.
+	public void pointsWereModified() {
+		++ geometryVersion;
+		++ storedPointsVersion;
+		isBoundingRectangleValid = false;
+		isLocalBoundingRectangleValid = false;
+		preparedPolygon = null;
+		outlinePyramid = null;
+	}
+
+	// Returns true if the shape has been manipulated since its transform was last baked.
+	public boolean hasTransform() { return ! transform.isIdentity(); }
+
+	// Applies the transform to the stored points, so that they are in world space.
+	// This does not move the shape, but it may make its bounding rectangle tighter,
+	// so a shape in a ShapeContainer should then be passed to ShapeContainer.shapeWasModified().
+	// This also decodes the points of a shape loaded from a SceneFile, since callers need them.
+	public void bakeTransform() {
+		decodePoints();
+		if ( transform.isIdentity() )
+			return;
+		transform.transformPoints( coordinates, numPoints );
+		transform.setToIdentity();
+		++ storedPointsVersion;
+		isBoundingRectangleValid = false;
+		isLocalBoundingRectangleValid = false;
+		preparedPolygon = null;
+		outlinePyramid = null;
+	}
+
+	public void translate( float dx, float dy ) {
+		transform.preTranslate( dx, dy );
+		++ geometryVersion;
+		// A translation moves the bounds along with the points, so there is no need to recompute them.
+		if ( isBoundingRectangleValid )
+			boundingRectangle.translate( dx, dy );
+	}
+
+	public void translateBasedOnDisplacementOfOnePoint( Point2D P_old, Point2D P_new ) {
+		Vector2D translation = scratchTranslation;
+		Point2DUtil.computeTranslationBasedOnDisplacementOfOnePoint( P_old, P_new, translation );
+		translate( translation.x(), translation.y() );
+	}
+
+	// Applies the given transformation to the shape, after any previous one.
+	public void transformBy( Transform2D t ) {
+		transform.preConcatenate( t );
+		++ geometryVersion;
+		isBoundingRectangleValid = false;
+	}
+
+	public void transformBasedOnDisplacementOfTwoPoints(
+		Point2D A_old, Point2D B_old,
+		Point2D A_new, Point2D B_new
+	) {
+		Point2DUtil.compute2DTransformBasedOnDisplacementOfTwoPoints( A_old, B_old, A_new, B_new, scratchTransform );
+		transform.preConcatenate( scratchTransform );
+		++ geometryVersion;
+		isBoundingRectangleValid = false;
 	}
 
 	public boolean isContainedInLassoPolygon( ArrayList< Point2D > polygonPoints ) {
-		for ( Point2D p : points ) {
-			if ( ! Point2DUtil.isPointInsidePolygon( polygonPoints, p ) )
+		return isContainedInLassoPolygon( new PreparedPolygon( polygonPoints ) );
+	}
+
+	// Same as above, for callers that test many shapes against the same lasso
+	// and can prepare the lasso once.
+	public boolean isContainedInLassoPolygon( PreparedPolygon polygon ) {
+		if ( ! polygon.getBoundingRectangle().contains( getBoundingRectangle() ) )
+			return false;
+		bakeTransform();
+		for ( int i = 0; i < numPoints; ++i ) {
+			if ( ! polygon.contains( coordinates[ 2*i ], coordinates[ 2*i+1 ] ) )
 				return false;
 		}
 		return true;
 	}
 
 
-	public int getNumPoints() { return points.size(); }
-	public ArrayList< Point2D > getPoints() { return points; }
-}
+	// The following return the points in world space, baking the transform if necessary.
+
+	public int getNumPoints() { return numPoints; }
+	public float getX( int i ) { bakeTransform(); return coordinates[ 2*i ]; }
+	public float getY( int i ) { bakeTransform(); return coordinates[ 2*i+1 ]; }
+
+	// Returns the packed coordinates of the points (x0, y0, x1, y1, ...).
+	// The array may be longer than 2*getNumPoints().
+	// Callers that modify it must call pointsWereModified() afterward.
+	public float [] getCoordinates() { bakeTransform(); return coordinates; }
+
+	// Copies the packed coordinates of the points in world space into the given array, starting at the given offset.
+	// Unlike the above, this does not bake the transform, so it can be called during a manipulation
+	// without rewriting the stored points.
+	public void copyCoordinates( float [] result, int offset ) {
+		decodePoints();
+		if ( transform.isIdentity() ) {
+			System.arraycopy( coordinates, 0, result, offset, 2 * numPoints );
+			return;
+		}
+		for ( int i = 0; i < numPoints; ++i ) {
+			float x = coordinates[ 2*i ], y = coordinates[ 2*i+1 ];
+			result[ offset + 2*i ] = transform.transformX( x, y );
+			result[ offset + 2*i+1 ] = transform.transformY( x, y );
+		}
+	}
+
+	// Returns the file from which the points will be decoded, if they have not been decoded yet
+	// and the shape has not moved since it was loaded, or null otherwise.
+	// The points are then exactly as stored at getIndexInSceneFile() in that file.
+	SceneFile getUnmodifiedSceneFile() {
+		return ( coordinates == null && transform.isIdentity() ) ? sceneFile : null;
+	}
+	int getIndexInSceneFile() { return indexInSceneFile; }
 
+	public int getGeometryVersion() { return geometryVersion; }
 
+	// Returns a read-only copy of the points in world space, kept for code written for ArrayList< Point2D >.
+	// The copy is cached until the points change, so the caller must not modify it;
+	// modifying it would not modify the shape: use getCoordinates() and pointsWereModified(), or the transformations above.
+	// Like copyCoordinates(), this does not bake the transform, and ignores the transform of the active group, if any.
+	@Deprecated
+	public ArrayList< Point2D > getPoints() {
+		if ( pointsView == null || pointsViewVersion != geometryVersion ) {
+			float [] worldCoordinates = new float[ 2 * numPoints ];
+			copyCoordinates( worldCoordinates, 0 );
+			pointsView = new ArrayList< Point2D >( numPoints );
+			for ( int i = 0; i < numPoints; ++i )
+				pointsView.add( new Point2D( worldCoordinates[ 2*i ], worldCoordinates[ 2*i+1 ] ) );
+			pointsViewVersion = geometryVersion;
+		}
+		return pointsView;
+	}
+}
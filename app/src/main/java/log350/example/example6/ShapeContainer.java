@@ -1,47 +1,269 @@
-
 package log350.example.example6;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 
 class ShapeContainer {
 	public ArrayList< Shape > shapes = new ArrayList< Shape >();
 
+	// A spatial index over the bounding rectangles of the shapes,
+	// so that finding the shape under a point does not require testing every shape.
+	// It also maintains the bounds of the whole scene as shapes are added, removed and modified.
+	private BoundingBoxTree tree = new BoundingBoxTree();
+
+	// Reused by queries, to avoid allocating a new list on every touch event.
+	private ArrayList< Shape > candidates = new ArrayList< Shape >();
+
+	private static final Comparator< Shape > INDEX_COMPARATOR = new Comparator< Shape >() {
+		public int compare( Shape a, Shape b ) {
+			return a.indexInContainer - b.indexInContainer;
+		}
+	};
+
 	public Shape getShape( int index ) { if(index != -1)
 											return shapes.get(index);
 										 else
 											return null; }
 
 	public void addShape( ArrayList< Point2D > points /* in world space */ ) {
-		Shape s = new Shape( points );
+		addShape( new Shape( points ) );
+	}
+
+	public void addShape( Shape s ) {
+		s.indexInContainer = shapes.size();
 		shapes.add( s );
+		s.nodeInTree = tree.insert( s, s.getBoundingRectangle() );
+		++ staticContentVersion;
+		++ modificationVersion;
+	}
+
+	// Same as calling addShape() for each of the given shapes, but much faster on an empty container,
+	// since the spatial index can then be built all at once.
+	public void addShapes( ArrayList< Shape > newShapes ) {
+		BoundingBoxTree.Node [] leaves = tree.insertAll( newShapes );
+		for ( int i = 0; i < newShapes.size(); ++i ) {
+			Shape s = newShapes.get( i );
+			s.indexInContainer = shapes.size();
+			shapes.add( s );
+			s.nodeInTree = leaves[ i ];
+		}
+		++ staticContentVersion;
+		++ modificationVersion;
 	}
 
 	public void removeShape( int index) {
-		shapes.remove(index);
+		Shape s = shapes.remove(index);
+		tree.remove( s.nodeInTree );
+		s.nodeInTree = null;
+		s.indexInContainer = -1;
+		for ( int i = index; i < shapes.size(); ++i )
+			shapes.get(i).indexInContainer = i;
+		++ staticContentVersion;
+		++ modificationVersion;
 	}
 
+	// Must be called after a shape has moved or changed, through Shape.translate(),
+	// translateBasedOnDisplacementOfOnePoint(), transformBy(), transformBasedOnDisplacementOfTwoPoints()
+	// or bakeTransform(), or after its coordinates were modified in place (see Shape.pointsWereModified()),
+	// so that the spatial index stays consistent with the shape.
+	public void shapeWasModified( Shape s ) {
+		if ( s.nodeInTree != null )
+			tree.update( s.nodeInTree, s.getBoundingRectangle() );
+		if ( ! isLive( s ) )
+			++ staticContentVersion;
+		++ modificationVersion;
+	}
+
+	// Changes whenever a shape is added, removed or modified,
+	// so that the shapes are only saved again (see SceneFile) when they have changed.
+	private int modificationVersion = 0;
+	public int getModificationVersion() { return modificationVersion; }
+
 	// returns -1 if no shape contains the given point
 	public int indexOfShapeContainingGivenPoint( Point2D p /* in world space */ ) {
-		for ( int i = 0; i < shapes.size(); ++i ) {
-			Shape s = shapes.get(i);
+		candidates.clear();
+		tree.queryPoint( p.x(), p.y(), candidates );
+
+		// Among the shapes containing the point, we return the one with the lowest index,
+		// so candidates are tested in order of increasing index and we stop at the first hit.
+		if ( candidates.size() > 1 )
+			Collections.sort( candidates, INDEX_COMPARATOR );
+		for ( int i = 0; i < candidates.size(); ++i ) {
+			Shape s = candidates.get(i);
 			if ( s.contains(p) )
-				return i;
+				return s.indexInContainer;
 		}
 		return -1;
 	}
 
+	// Appends, to the given list, the shapes that are entirely inside the given lasso polygon,
+	// in order of increasing index.
+	// Only the shapes whose bounds are inside the bounds of the lasso are tested against the lasso itself.
+	public void getShapesContainedInLassoPolygon(
+		ArrayList< Point2D > polygonPoints, // in world space
+		ArrayList< Shape > result
+	) {
+		PreparedPolygon polygon = new PreparedPolygon( polygonPoints );
+		AlignedRectangle2D polygonBounds = polygon.getBoundingRectangle();
+		if ( polygonBounds.isEmpty() )
+			return;
+		Point2D min = polygonBounds.getMin();
+		Point2D max = polygonBounds.getMax();
+
+		candidates.clear();
+		tree.queryContainedIn( min.x(), min.y(), max.x(), max.y(), candidates );
+		if ( candidates.size() > 1 )
+			Collections.sort( candidates, INDEX_COMPARATOR );
+		for ( int i = 0; i < candidates.size(); ++i ) {
+			Shape s = candidates.get(i);
+			if ( s.isContainedInLassoPolygon( polygon ) )
+				result.add( s );
+		}
+	}
+
+	// Statistics about the last call to draw()
+	private int numShapesDrawn = 0;
+	private int numShapesFromLayer = 0; // drawn earlier into the layer (see below), which was copied to the screen
+	private int numShapesCulled = 0;
+	public int getNumShapesDrawnInLastFrame() { return numShapesDrawn; }
+	public int getNumShapesFromLayerInLastFrame() { return numShapesFromLayer; }
+	public int getNumShapesCulledInLastFrame() { return numShapesCulled; }
+
+	// The number of static shapes drawn when the layer was last drawn.
+	private int numShapesInLayer = 0;
+
+	private AlignedRectangle2D viewport = new AlignedRectangle2D();
+	private AlignedRectangle2D groupViewport = new AlignedRectangle2D();
+
+	// The group being manipulated, if any.
+	// Its members are not where the tree last saw them, so they are culled and drawn separately.
+	private ShapeGroup activeGroup = null;
+	public void setActiveGroup( ShapeGroup group ) { activeGroup = group; ++ staticContentVersion; }
+
+	// The single shape being manipulated, if any.
+	private Shape liveShape = null;
+	public void setLiveShape( Shape s ) { liveShape = s; ++ staticContentVersion; }
+
+	// While a shape or a group is being manipulated, the other ("static") shapes do not change,
+	// so they are drawn once into an offscreen layer of the GraphicsWrapper, which is then copied to the screen each frame,
+	// and only the manipulated ("live") shapes are drawn again every frame.
+	// This version changes whenever the static shapes, or how they are drawn, may have changed,
+	// and the layer is then drawn again (as it is when the camera changes).
+	// The layer is kept between manipulations, so that starting one does not allocate it again;
+	// it is freed when the window is resized or detached (see GraphicsWrapper.setSurface() and DrawingView).
+	private int staticContentVersion = 0;
+	private int lastIndexOfShapeToHighlight = -1;
+
+	private boolean isLive( Shape s ) { return s.group != null || s == liveShape; }
+
+	// Only the shapes whose bounds intersect the region of world space visible in the window are drawn.
+	// While the layer holding the static shapes is up to date, only the live shapes are looked at,
+	// so the time taken depends on the size of what is manipulated rather than on the size of the scene.
 	public void draw( GraphicsWrapper gw, int indexOfShapeToHighlight /* -1 for none */ ) {
-		for ( int i = 0; i < shapes.size(); ++i ) {
-			Shape s = shapes.get(i);
-			s.draw(gw, i==indexOfShapeToHighlight );
+		if ( indexOfShapeToHighlight != lastIndexOfShapeToHighlight ) {
+			lastIndexOfShapeToHighlight = indexOfShapeToHighlight;
+			++ staticContentVersion;
+		}
+
+		gw.getViewportInWorldSpaceUnits( viewport );
+		numShapesDrawn = 0;
+		numShapesFromLayer = 0;
+		if ( liveShape != null || activeGroup != null ) {
+			if ( ! gw.isLayerUpToDate( staticContentVersion ) ) {
+				findVisibleShapes();
+				gw.beginLayer();
+				drawCandidates( gw, indexOfShapeToHighlight, DRAW_STATIC );
+				gw.endLayer( staticContentVersion );
+				numShapesInLayer = numShapesDrawn;
+				numShapesDrawn = 0;
+			}
+			gw.drawLayer();
+			numShapesFromLayer = numShapesInLayer;
+
+			// The live shapes are drawn over the layer, and so appear above the static shapes while they are manipulated.
+			candidates.clear();
+			if ( liveShape != null && liveShape.group == null && liveShape.getBoundingRectangle().intersects( viewport ) )
+				candidates.add( liveShape );
+			addVisibleMembersOfActiveGroup();
+			if ( candidates.size() > 1 )
+				Collections.sort( candidates, INDEX_COMPARATOR );
+			drawCandidates( gw, indexOfShapeToHighlight, DRAW_LIVE );
+		}
+		else {
+			findVisibleShapes();
+			drawCandidates( gw, indexOfShapeToHighlight, DRAW_ALL );
+		}
+		numShapesCulled = shapes.size() - numShapesDrawn - numShapesFromLayer;
+	}
+
+	// Sets the candidates to the shapes that intersect the viewport, in order of increasing index.
+	private void findVisibleShapes() {
+		Point2D min = viewport.getMin();
+		Point2D max = viewport.getMax();
+		candidates.clear();
+		tree.queryIntersecting( min.x(), min.y(), max.x(), max.y(), candidates );
+		if ( activeGroup != null ) {
+			// Replace the members found by the tree with the members that are visible where the group shows them.
+			int n = 0;
+			for ( int i = 0; i < candidates.size(); ++i ) {
+				Shape s = candidates.get(i);
+				if ( s.group == null )
+					candidates.set( n++, s );
+			}
+			while ( candidates.size() > n )
+				candidates.remove( candidates.size()-1 );
+			addVisibleMembersOfActiveGroup();
+		}
+		// Shapes must be drawn in order of increasing index, so that overlapping shapes appear as before.
+		if ( candidates.size() > 1 )
+			Collections.sort( candidates, INDEX_COMPARATOR );
+	}
+
+	// Adds to the candidates the members of the active group, if any, that are visible where the group shows them,
+	// by comparing them to the viewport brought back through the group's transform.
+	private void addVisibleMembersOfActiveGroup() {
+		if ( activeGroup == null || ! activeGroup.getBoundingRectangle().intersects( viewport ) )
+			return;
+		activeGroup.getTransform().inverseTransformBounds( viewport, groupViewport );
+		ArrayList< Shape > members = activeGroup.getMembers();
+		for ( int i = 0; i < members.size(); ++i ) {
+			if ( members.get(i).getBoundingRectangle().intersects( groupViewport ) )
+				candidates.add( members.get(i) );
 		}
 	}
 
+	private static final int DRAW_ALL = 0;
+	private static final int DRAW_STATIC = 1;
+	private static final int DRAW_LIVE = 2;
+
+	// Draws the candidates, or only those that are static or live, in order of increasing index.
+	private void drawCandidates( GraphicsWrapper gw, int indexOfShapeToHighlight, int which ) {
+		boolean isDrawingGroup = false;
+		for ( int i = 0; i < candidates.size(); ++i ) {
+			Shape s = candidates.get(i);
+			if ( which != DRAW_ALL && isLive( s ) != ( which == DRAW_LIVE ) )
+				continue;
+			// Members of the active group are drawn through its transform,
+			// which is set once for each run of consecutive members.
+			if ( ( s.group != null ) != isDrawingGroup ) {
+				if ( isDrawingGroup )
+					gw.popTransform();
+				else
+					gw.pushTransform( activeGroup.getTransform() );
+				isDrawingGroup = ! isDrawingGroup;
+			}
+			s.draw(gw, s.indexInContainer==indexOfShapeToHighlight );
+			++ numShapesDrawn;
+		}
+		if ( isDrawingGroup )
+			gw.popTransform();
+	}
+
+	// Takes constant time, since the bounds are maintained by the spatial index.
 	public AlignedRectangle2D getBoundingRectangle() {
 		AlignedRectangle2D rect = new AlignedRectangle2D();
-		for ( Shape s : shapes )
-			rect.bound( s.getBoundingRectangle() );
+		tree.getBounds( rect );
 		return rect;
 	}
 }
-
@@ -0,0 +1,75 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+
+
+// A set of shapes that are manipulated together, such as the selected shapes.
+//
+// While the group is active, manipulating it only updates a single transform shared by all its members,
+// which takes constant time however many shapes and points the group contains.
+// The members themselves are left untouched (their own getters ignore the group's transform),
+// and are drawn through the group's transform by ShapeContainer.
+// When the manipulation ends, the transform must be applied to every member
+// (with Shape.transformBy(), or SelectionHull.transformShapes()) before end() is called.
+class ShapeGroup {
+
+	private ArrayList< Shape > members = null;
+	private Transform2D transform = new Transform2D();
+
+	// Union of the bounds of the members when the group became active, before the transform.
+	private AlignedRectangle2D localBoundingRectangle = new AlignedRectangle2D();
+	private AlignedRectangle2D boundingRectangle = new AlignedRectangle2D();
+
+	// Scratch objects reused by every manipulation, to avoid allocating.
+	private Vector2D scratchTranslation = new Vector2D();
+	private Transform2D scratchTransform = new Transform2D();
+
+	public boolean isActive() { return members != null; }
+
+	// The given list must not change until end() is called.
+	public void begin( ArrayList< Shape > shapes ) {
+		members = shapes;
+		transform.setToIdentity();
+		localBoundingRectangle.clear();
+		for ( int i = 0; i < members.size(); ++i ) {
+			Shape s = members.get( i );
+			s.group = this;
+			localBoundingRectangle.bound( s.getBoundingRectangle() );
+		}
+	}
+
+	// Makes the group inactive.
+	// Members to which the transform was not applied return to where they were before begin().
+	public void end() {
+		for ( int i = 0; i < members.size(); ++i )
+			members.get( i ).group = null;
+		members = null;
+		transform.setToIdentity();
+	}
+
+	public ArrayList< Shape > getMembers() { return members; }
+
+	// Maps the members to where they are shown.
+	// The returned transform is owned by the group, and must not be modified by the caller.
+	public Transform2D getTransform() { return transform; }
+
+	// Returns bounds containing every member, as it is shown.
+	// The returned rectangle is owned by the group, and must not be modified by the caller.
+	public AlignedRectangle2D getBoundingRectangle() {
+		transform.transformBounds( localBoundingRectangle, boundingRectangle );
+		return boundingRectangle;
+	}
+
+	public void translateBasedOnDisplacementOfOnePoint( Point2D P_old, Point2D P_new ) {
+		Point2DUtil.computeTranslationBasedOnDisplacementOfOnePoint( P_old, P_new, scratchTranslation );
+		transform.preTranslate( scratchTranslation.x(), scratchTranslation.y() );
+	}
+
+	public void transformBasedOnDisplacementOfTwoPoints(
+		Point2D A_old, Point2D B_old,
+		Point2D A_new, Point2D B_new
+	) {
+		Point2DUtil.compute2DTransformBasedOnDisplacementOfTwoPoints( A_old, B_old, A_new, B_new, scratchTransform );
+		transform.preConcatenate( scratchTransform );
+	}
+}
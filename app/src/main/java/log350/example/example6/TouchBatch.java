@@ -0,0 +1,92 @@
+package log350.example.example6;
+
+
+// Stores the positions of all the fingers reported by one touch event,
+// including the intermediate ("historical") positions that the platform
+// accumulates between two events when the touch screen reports faster than the display refreshes.
+//
+// The positions are stored as a table of samples:
+// each sample has a time, and one position for each pointer (finger) of the event.
+// The last sample holds the positions at the time of the event itself.
+// The arrays are reused from one event to the next, so filling a batch does not allocate
+// once the arrays have grown to the largest event seen.
+//
+// This class does not depend on the platform's event classes,
+// so that batches can also be created by other means (for example, when replaying recorded input).
+class TouchBatch {
+
+	// The kinds of events, with the same values as the corresponding constants of MotionEvent.
+	public static final int ACTION_DOWN = 0;
+	public static final int ACTION_UP = 1;
+	public static final int ACTION_MOVE = 2;
+
+	private int action; // one of the above
+	// The id of the pointer that went down or up, for events of those kinds.
+	private int actionPointerId;
+
+	private int numPointers = 0;
+	private int [] pointerIds = new int[ 10 ];
+
+	private int numSamples = 0;
+	private long [] sampleTimes = new long[ 8 ];
+	// The position of pointer p in sample s is at index s*pointerCapacity+p.
+	private int pointerCapacity = 10;
+	private float [] x = new float[ 8 * 10 ];
+	private float [] y = new float[ 8 * 10 ];
+
+	// Starts a new batch, discarding the previous contents.
+	public void reset( int action, int actionPointerId, int numPointers ) {
+		this.action = action;
+		this.actionPointerId = actionPointerId;
+		this.numPointers = numPointers;
+		numSamples = 0;
+		if ( numPointers > pointerCapacity ) {
+			pointerCapacity = Math.max( numPointers, 2 * pointerCapacity );
+			pointerIds = new int[ pointerCapacity ];
+			x = new float[ sampleTimes.length * pointerCapacity ];
+			y = new float[ sampleTimes.length * pointerCapacity ];
+		}
+	}
+
+	public void setPointerId( int pointerIndex, int id ) { pointerIds[ pointerIndex ] = id; }
+
+	// Appends a sample, whose positions must then be given with setPosition(), and returns its index.
+	public int addSample( long time ) {
+		if ( numSamples == sampleTimes.length ) {
+			long [] newTimes = new long[ 2 * sampleTimes.length ];
+			System.arraycopy( sampleTimes, 0, newTimes, 0, numSamples );
+			sampleTimes = newTimes;
+			float [] newX = new float[ newTimes.length * pointerCapacity ];
+			float [] newY = new float[ newTimes.length * pointerCapacity ];
+			System.arraycopy( x, 0, newX, 0, numSamples * pointerCapacity );
+			System.arraycopy( y, 0, newY, 0, numSamples * pointerCapacity );
+			x = newX;
+			y = newY;
+		}
+		sampleTimes[ numSamples ] = time;
+		return numSamples ++;
+	}
+
+	public void setPosition( int sampleIndex, int pointerIndex, float x, float y ) {
+		this.x[ sampleIndex*pointerCapacity + pointerIndex ] = x;
+		this.y[ sampleIndex*pointerCapacity + pointerIndex ] = y;
+	}
+
+	public int getAction() { return action; }
+	public int getActionPointerId() { return actionPointerId; }
+	public int getNumPointers() { return numPointers; }
+	public int getPointerId( int pointerIndex ) { return pointerIds[ pointerIndex ]; }
+	public int getNumSamples() { return numSamples; }
+	public long getSampleTime( int sampleIndex ) { return sampleTimes[ sampleIndex ]; }
+	public float getX( int sampleIndex, int pointerIndex ) { return x[ sampleIndex*pointerCapacity + pointerIndex ]; }
+	public float getY( int sampleIndex, int pointerIndex ) { return y[ sampleIndex*pointerCapacity + pointerIndex ]; }
+
+	// Returns the index of the pointer with the given id, or -1 if there is no such pointer.
+	public int findPointerIndex( int id ) {
+		for ( int p = 0; p < numPointers; ++p ) {
+			if ( pointerIds[ p ] == id )
+				return p;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,223 @@
+package log350.example.example6;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+
+
+// A recording of the touch events received by the application, in a compact binary format,
+// preceded by a snapshot of the state of the application when the recording started
+// (the size of the window, the camera, the shapes and the selection),
+// so that the events can be replayed later against the same state, and give the same results.
+//
+// The format is:
+//
+//    header:   int MAGIC, int VERSION
+//    snapshot: int window width, int window height,
+//              float camera offset x, float camera offset y, float camera scale factor,
+//              varint number of shapes, and for each shape:
+//                  varint number of points, and for each point: float x, float y (in world space)
+//              varint number of selected shapes, and for each one: varint index of the shape
+//    events, until the end of the stream, each one stored as:
+//              byte action (TouchBatch.ACTION_...),
+//              varint id of the action pointer, varint number of pointers, and for each pointer: varint id,
+//              varint number of samples, and for each sample:
+//                  signed varint time (in milliseconds), relative to the time of the previous sample of the trace,
+//                  and for each pointer: float x, float y (in pixels)
+//
+// Integers are written as variable-length integers ("varints"), 7 bits per byte, least significant first,
+// with the high bit of each byte set if more bytes follow.
+// Signed integers are first mapped to unsigned ones by "zigzag" encoding (0, -1, 1, -2, ... become 0, 1, 2, 3, ...),
+// so that small negative values are also short.
+// Floats are written as is, so that the replayed positions are exactly the recorded ones.
+class TouchTrace {
+
+	static final int MAGIC = 0x46465454; // "FFTT"
+	static final int VERSION = 1;
+
+	// Writes a trace to a stream, which should be buffered, since many small writes are made.
+	static class Writer {
+		private DataOutputStream out;
+		private long previousTime = 0;
+		private int numBatches = 0;
+
+		// Writes the header, and a snapshot of the given controller.
+		// No finger should be touching the screen at this point.
+		public Writer( OutputStream stream, DrawingController controller ) throws IOException {
+			out = new DataOutputStream( stream );
+			out.writeInt( MAGIC );
+			out.writeInt( VERSION );
+			writeSnapshot( controller );
+		}
+
+		private void writeSnapshot( DrawingController controller ) throws IOException {
+			GraphicsWrapper gw = controller.gw;
+			out.writeInt( gw.getWidth() );
+			out.writeInt( gw.getHeight() );
+			out.writeFloat( gw.getOffsetXInPixels() );
+			out.writeFloat( gw.getOffsetYInPixels() );
+			out.writeFloat( gw.getScaleFactorInWorldSpaceUnitsPerPixel() );
+
+			ArrayList< Shape > shapes = controller.shapeContainer.shapes;
+			writeVarint( out, shapes.size() );
+			for ( int i = 0; i < shapes.size(); ++i ) {
+				Shape s = shapes.get( i );
+				int numPoints = s.getNumPoints();
+				float [] coordinates = s.getCoordinates();
+				writeVarint( out, numPoints );
+				for ( int j = 0; j < 2 * numPoints; ++j )
+					out.writeFloat( coordinates[ j ] );
+			}
+
+			ArrayList< Shape > selectedShapes = controller.selectedShapes;
+			writeVarint( out, selectedShapes.size() );
+			for ( int i = 0; i < selectedShapes.size(); ++i )
+				writeVarint( out, selectedShapes.get( i ).indexInContainer );
+		}
+
+		public void write( TouchBatch batch ) throws IOException {
+			out.writeByte( batch.getAction() );
+			writeVarint( out, batch.getActionPointerId() );
+			int numPointers = batch.getNumPointers();
+			writeVarint( out, numPointers );
+			for ( int p = 0; p < numPointers; ++p )
+				writeVarint( out, batch.getPointerId( p ) );
+			int numSamples = batch.getNumSamples();
+			writeVarint( out, numSamples );
+			for ( int s = 0; s < numSamples; ++s ) {
+				long time = batch.getSampleTime( s );
+				writeVarint( out, zigzag( time - previousTime ) );
+				previousTime = time;
+				for ( int p = 0; p < numPointers; ++p ) {
+					out.writeFloat( batch.getX( s, p ) );
+					out.writeFloat( batch.getY( s, p ) );
+				}
+			}
+			++ numBatches;
+		}
+
+		public int getNumBatches() { return numBatches; }
+
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	// Reads a trace from a stream, which should be buffered.
+	static class Reader {
+		private DataInputStream in;
+		private long previousTime = 0;
+
+		private int windowWidth, windowHeight;
+		private float cameraOffsetX, cameraOffsetY, cameraScaleFactor;
+		private ArrayList< ArrayList< Point2D > > shapes = new ArrayList< ArrayList< Point2D > >();
+		private int [] selectedShapeIndices;
+
+		// Reads the header and the snapshot.
+		public Reader( InputStream stream ) throws IOException {
+			in = new DataInputStream( stream );
+			if ( in.readInt() != MAGIC )
+				throw new IOException( "not a touch trace" );
+			int version = in.readInt();
+			if ( version != VERSION )
+				throw new IOException( "unsupported touch trace version " + version );
+
+			windowWidth = in.readInt();
+			windowHeight = in.readInt();
+			cameraOffsetX = in.readFloat();
+			cameraOffsetY = in.readFloat();
+			cameraScaleFactor = in.readFloat();
+			int numShapes = readVarint( in );
+			for ( int i = 0; i < numShapes; ++i ) {
+				int numPoints = readVarint( in );
+				ArrayList< Point2D > points = new ArrayList< Point2D >( numPoints );
+				for ( int j = 0; j < numPoints; ++j ) {
+					float x = in.readFloat();
+					points.add( new Point2D( x, in.readFloat() ) );
+				}
+				shapes.add( points );
+			}
+			selectedShapeIndices = new int[ readVarint( in ) ];
+			for ( int i = 0; i < selectedShapeIndices.length; ++i )
+				selectedShapeIndices[ i ] = readVarint( in );
+		}
+
+		public int getWindowWidth() { return windowWidth; }
+		public int getWindowHeight() { return windowHeight; }
+
+		// Puts the given controller, which must be newly created, in the state of the snapshot.
+		// The controller should then draw a frame on a surface of the size of the window,
+		// before the events are passed to it.
+		public void restoreSnapshot( DrawingController controller ) {
+			controller.gw.setCamera( cameraOffsetX, cameraOffsetY, cameraScaleFactor );
+			for ( int i = 0; i < shapes.size(); ++i )
+				controller.shapeContainer.addShape( shapes.get( i ) );
+			for ( int i = 0; i < selectedShapeIndices.length; ++i )
+				controller.selectedShapes.add( controller.shapeContainer.getShape( selectedShapeIndices[ i ] ) );
+			if ( selectedShapeIndices.length > 0 ) {
+				// The selection can be manipulated once a lasso has been drawn, whatever its points.
+				controller.lassoPolygonPoints = new ArrayList< Point2D >();
+			}
+		}
+
+		// Reads the next event into the given batch.
+		// Returns false, leaving the batch unchanged, if there are no more events.
+		public boolean read( TouchBatch batch ) throws IOException {
+			int action = in.read();
+			if ( action == -1 )
+				return false;
+			int actionPointerId = readVarint( in );
+			int numPointers = readVarint( in );
+			batch.reset( action, actionPointerId, numPointers );
+			for ( int p = 0; p < numPointers; ++p )
+				batch.setPointerId( p, readVarint( in ) );
+			int numSamples = readVarint( in );
+			for ( int i = 0; i < numSamples; ++i ) {
+				long time = previousTime + unzigzag( readVarlong( in ) );
+				previousTime = time;
+				int s = batch.addSample( time );
+				for ( int p = 0; p < numPointers; ++p ) {
+					float x = in.readFloat();
+					batch.setPosition( s, p, x, in.readFloat() );
+				}
+			}
+			return true;
+		}
+
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	static long zigzag( long n ) { return ( n << 1 ) ^ ( n >> 63 ); }
+	static long unzigzag( long n ) { return ( n >>> 1 ) ^ -( n & 1 ); }
+
+	static void writeVarint( DataOutputStream out, long n ) throws IOException {
+		while ( ( n & ~0x7fL ) != 0 ) {
+			out.writeByte( (int)( ( n & 0x7f ) | 0x80 ) );
+			n >>>= 7;
+		}
+		out.writeByte( (int)n );
+	}
+
+	static long readVarlong( DataInputStream in ) throws IOException {
+		long n = 0;
+		for ( int shift = 0; shift < 64; shift += 7 ) {
+			int b = in.read();
+			if ( b == -1 )
+				throw new EOFException( "truncated touch trace" );
+			n |= (long)( b & 0x7f ) << shift;
+			if ( ( b & 0x80 ) == 0 )
+				return n;
+		}
+		throw new IOException( "malformed varint in touch trace" );
+	}
+
+	static int readVarint( DataInputStream in ) throws IOException {
+		return (int)readVarlong( in );
+	}
+}
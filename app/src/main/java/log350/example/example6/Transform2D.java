@@ -0,0 +1,118 @@
+package log350.example.example6;
+
+// A 2D affine transformation, which maps a point (x,y) to
+//
+//    x' = m00*x + m01*y + m02
+//    y' = m10*x + m11*y + m12
+//
+// The transformations produced by the manipulations of this application
+// (translations, rotations, and uniform scalings) are all of this form,
+// and so are any compositions of them.
+public class Transform2D {
+
+	public float m00 = 1, m01 = 0, m02 = 0;
+	public float m10 = 0, m11 = 1, m12 = 0;
+
+	public Transform2D() {
+	}
+
+	public void setToIdentity() {
+		m00 = 1; m01 = 0; m02 = 0;
+		m10 = 0; m11 = 1; m12 = 0;
+	}
+
+	public boolean isIdentity() {
+		return m00 == 1 && m01 == 0 && m02 == 0
+			&& m10 == 0 && m11 == 1 && m12 == 0;
+	}
+
+	public void copy( Transform2D t ) {
+		m00 = t.m00; m01 = t.m01; m02 = t.m02;
+		m10 = t.m10; m11 = t.m11; m12 = t.m12;
+	}
+
+	// Replaces this transformation with one that first applies this transformation, then the given translation.
+	public void preTranslate( float dx, float dy ) {
+		m02 += dx;
+		m12 += dy;
+	}
+
+	// Replaces this transformation with one that first applies this transformation, then the given one.
+	public void preConcatenate( Transform2D t ) {
+		float a00 = t.m00*m00 + t.m01*m10;
+		float a01 = t.m00*m01 + t.m01*m11;
+		float a02 = t.m00*m02 + t.m01*m12 + t.m02;
+		float a10 = t.m10*m00 + t.m11*m10;
+		float a11 = t.m10*m01 + t.m11*m11;
+		float a12 = t.m10*m02 + t.m11*m12 + t.m12;
+		m00 = a00; m01 = a01; m02 = a02;
+		m10 = a10; m11 = a11; m12 = a12;
+	}
+
+	// Returns the factor by which the transformation scales lengths.
+	// This is exact for a uniform scaling (possibly combined with a rotation and translation),
+	// and is the square root of the factor by which areas are scaled otherwise.
+	public float getScale() {
+		return (float)Math.sqrt( Math.abs( m00*m11 - m01*m10 ) );
+	}
+
+	public float transformX( float x, float y ) { return m00*x + m01*y + m02; }
+	public float transformY( float x, float y ) { return m10*x + m11*y + m12; }
+
+	// These apply the inverse transformation.
+	// The transformation must be invertible (which is the case unless it scales by zero).
+	public float inverseTransformX( float x, float y ) {
+		float determinant = m00*m11 - m01*m10;
+		return ( m11*(x-m02) - m01*(y-m12) ) / determinant;
+	}
+	public float inverseTransformY( float x, float y ) {
+		float determinant = m00*m11 - m01*m10;
+		return ( m00*(y-m12) - m10*(x-m02) ) / determinant;
+	}
+
+	// Transforms, in place, points packed as x0, y0, x1, y1, ...
+	public void transformPoints( float [] coordinates, int numPoints ) {
+		for ( int i = 0; i < numPoints; ++i ) {
+			float x = coordinates[ 2*i ];
+			float y = coordinates[ 2*i+1 ];
+			coordinates[ 2*i ] = m00*x + m01*y + m02;
+			coordinates[ 2*i+1 ] = m10*x + m11*y + m12;
+		}
+	}
+
+	// Stores, in the given result, the bounds of the transformed corners of the given rectangle.
+	// These contain the transformed contents of the rectangle,
+	// but may be larger than the bounds of the transformed contents if the transformation includes a rotation.
+	public void transformBounds( AlignedRectangle2D rect, AlignedRectangle2D result ) {
+		result.clear();
+		if ( rect.isEmpty() )
+			return;
+		float x0 = rect.getMin().x(), y0 = rect.getMin().y();
+		float x1 = rect.getMax().x(), y1 = rect.getMax().y();
+		result.bound( transformX( x0, y0 ), transformY( x0, y0 ) );
+		result.bound( transformX( x1, y0 ), transformY( x1, y0 ) );
+		result.bound( transformX( x1, y1 ), transformY( x1, y1 ) );
+		result.bound( transformX( x0, y1 ), transformY( x0, y1 ) );
+	}
+
+	// Same as above, using the inverse transformation.
+	public void inverseTransformBounds( AlignedRectangle2D rect, AlignedRectangle2D result ) {
+		result.clear();
+		if ( rect.isEmpty() )
+			return;
+		float x0 = rect.getMin().x(), y0 = rect.getMin().y();
+		float x1 = rect.getMax().x(), y1 = rect.getMax().y();
+		result.bound( inverseTransformX( x0, y0 ), inverseTransformY( x0, y0 ) );
+		result.bound( inverseTransformX( x1, y0 ), inverseTransformY( x1, y0 ) );
+		result.bound( inverseTransformX( x1, y1 ), inverseTransformY( x1, y1 ) );
+		result.bound( inverseTransformX( x0, y1 ), inverseTransformY( x0, y1 ) );
+	}
+
+	// Returns the values in the row-major order of a 3x3 matrix, as expected by android.graphics.Matrix.setValues().
+	// The given array must have at least 9 elements.
+	public void getValues( float [] values ) {
+		values[0] = m00; values[1] = m01; values[2] = m02;
+		values[3] = m10; values[4] = m11; values[5] = m12;
+		values[6] = 0;   values[7] = 0;   values[8] = 1;
+	}
+}
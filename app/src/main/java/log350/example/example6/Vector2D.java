@@ -80,6 +80,30 @@ public class Vector2D {
 		else return new Vector2D(x(),y());
 	}
 
+	// In-place equivalents of negated() and normalized(), and of mult() below.
+	// Each returns this vector, so that calls can be chained.
+	public Vector2D negate() {
+		v[0] = -v[0];
+		v[1] = -v[1];
+		return this;
+	}
+
+	public Vector2D normalize() {
+		float l = length();
+		if ( l > 0 ) {
+			float k = 1/l; // scale factor
+			v[0] *= k;
+			v[1] *= k;
+		}
+		return this;
+	}
+
+	public Vector2D scale( float k ) {
+		v[0] *= k;
+		v[1] *= k;
+		return this;
+	}
+
 	// returns the dot-product of the given vectors
 	static public float dot( Vector2D a, Vector2D b ) {
 		return a.x()*b.x() + a.y()*b.y();
@@ -100,6 +124,22 @@ public class Vector2D {
 		return new Vector2D( a.x()*b, a.y()*b );
 	}
 
+	// The following are equivalent to the above, but store their result
+	// in an object provided by the caller instead of allocating a new one.
+	// The result may be the same object as one of the arguments.
+
+	static public void sum( Vector2D a, Vector2D b, Vector2D result ) {
+		result.copy( a.x()+b.x(), a.y()+b.y() );
+	}
+
+	static public void diff( Vector2D a, Vector2D b, Vector2D result ) {
+		result.copy( a.x()-b.x(), a.y()-b.y() );
+	}
+
+	static public void mult( Vector2D a, float b, Vector2D result ) {
+		result.copy( a.x()*b, a.y()*b );
+	}
+
 	// Computes the angle of rotation from v1 to v2 around the origin.
 	// The angle returned is in the interval [-pi,pi],
 	// where a positive angle corresponds to a counterclockwise rotation
@@ -0,0 +1,182 @@
+package log350.example.example6;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+
+// Checks that the transformation routines called for every touch event during a manipulation
+// do not allocate, by counting the bytes allocated by the current thread while calling each of them.
+//
+//    ./gradlew :benchmarks:checkAllocations
+//
+// Each routine is first called enough times for the virtual machine to compile it,
+// and then measured. Exits with an error if any of them allocates.
+// This relies on com.sun.management.ThreadMXBean, available on HotSpot and OpenJDK.
+public class AllocationCheck {
+
+	static final int NUM_WARMUP_CALLS = 100000;
+	static final int NUM_MEASURED_CALLS = 100000;
+
+	// One of the routines to check. run() is called with alternating values of isMovingBack,
+	// so that the points move back and forth and stay in the same region.
+	static abstract class Check {
+		String name;
+		Check( String name ) { this.name = name; }
+		abstract void run( boolean isMovingBack );
+	}
+
+	// Inputs shared by the checks.
+	static Point2D A_old = new Point2D( 400, 500 ), B_old = new Point2D( 600, 500 );
+	static Point2D A_new = new Point2D( 410, 490 ), B_new = new Point2D( 620, 520 );
+	static ArrayList< Point2D > points = SceneGenerator.createPoints( 100, 1000, 1 );
+	static float [] coordinates = SceneGenerator.pack( points );
+	static Vector2D translation = new Vector2D();
+	static Point2D rotationCenter = new Point2D();
+	static float [] rotationAngle = new float[ 1 ];
+	static float [] scaleFactor = new float[ 1 ];
+	static Transform2D transform = new Transform2D();
+	static Shape shape = new Shape( SceneGenerator.createPolygon( 100, 500, 500, 100, 2 ) );
+	static ShapeGroup group = new ShapeGroup();
+	static GraphicsWrapper gw = new GraphicsWrapper();
+	static Point2D result = new Point2D();
+	static float sink = 0;
+
+	static Check [] createChecks() {
+		ArrayList< Shape > members = new ArrayList< Shape >();
+		members.add( new Shape( SceneGenerator.createPolygon( 10, 500, 500, 100, 3 ) ) );
+		group.begin( members );
+
+		return new Check [] {
+			new Check( "Point2DUtil.computeTranslationBasedOnDisplacementOfOnePoint (returning)" ) {
+				void run( boolean back ) {
+					sink += Point2DUtil.computeTranslationBasedOnDisplacementOfOnePoint( back ? A_new : A_old, back ? A_old : A_new ).x();
+				}
+			},
+			new Check( "Point2DUtil.computeTranslationBasedOnDisplacementOfOnePoint (output)" ) {
+				void run( boolean back ) {
+					Point2DUtil.computeTranslationBasedOnDisplacementOfOnePoint( back ? A_new : A_old, back ? A_old : A_new, translation );
+				}
+			},
+			new Check( "Point2DUtil.translatePointsBasedOnDisplacementOfOnepoint (list)" ) {
+				void run( boolean back ) {
+					sink += Point2DUtil.translatePointsBasedOnDisplacementOfOnepoint( points, back ? A_new : A_old, back ? A_old : A_new ).x();
+				}
+			},
+			new Check( "Point2DUtil.translatePointsBasedOnDisplacementOfOnepoint (packed)" ) {
+				void run( boolean back ) {
+					Point2DUtil.translatePointsBasedOnDisplacementOfOnepoint(
+						coordinates, points.size(), back ? A_new : A_old, back ? A_old : A_new, translation
+					);
+				}
+			},
+			new Check( "Point2DUtil.compute2DTransformBasedOnDisplacementOfTwoPoints (components)" ) {
+				void run( boolean back ) {
+					Point2DUtil.compute2DTransformBasedOnDisplacementOfTwoPoints(
+						A_old, B_old, A_new, B_new, translation, rotationCenter, rotationAngle, scaleFactor
+					);
+				}
+			},
+			new Check( "Point2DUtil.compute2DTransformBasedOnDisplacementOfTwoPoints (transform)" ) {
+				void run( boolean back ) {
+					Point2DUtil.compute2DTransformBasedOnDisplacementOfTwoPoints( A_old, B_old, A_new, B_new, transform );
+				}
+			},
+			new Check( "Point2DUtil.transformPointsBasedOnDisplacementOfTwoPoints (list)" ) {
+				void run( boolean back ) {
+					if ( back )
+						Point2DUtil.transformPointsBasedOnDisplacementOfTwoPoints( points, A_new, B_new, A_old, B_old );
+					else
+						Point2DUtil.transformPointsBasedOnDisplacementOfTwoPoints( points, A_old, B_old, A_new, B_new );
+				}
+			},
+			new Check( "Point2DUtil.transformPointsBasedOnDisplacementOfTwoPoints (packed)" ) {
+				void run( boolean back ) {
+					if ( back )
+						Point2DUtil.transformPointsBasedOnDisplacementOfTwoPoints( coordinates, points.size(), A_new, B_new, A_old, B_old );
+					else
+						Point2DUtil.transformPointsBasedOnDisplacementOfTwoPoints( coordinates, points.size(), A_old, B_old, A_new, B_new );
+				}
+			},
+			new Check( "Shape.translateBasedOnDisplacementOfOnePoint" ) {
+				void run( boolean back ) {
+					shape.translateBasedOnDisplacementOfOnePoint( back ? A_new : A_old, back ? A_old : A_new );
+				}
+			},
+			new Check( "Shape.transformBasedOnDisplacementOfTwoPoints" ) {
+				void run( boolean back ) {
+					if ( back )
+						shape.transformBasedOnDisplacementOfTwoPoints( A_new, B_new, A_old, B_old );
+					else
+						shape.transformBasedOnDisplacementOfTwoPoints( A_old, B_old, A_new, B_new );
+				}
+			},
+			new Check( "ShapeGroup.translateBasedOnDisplacementOfOnePoint" ) {
+				void run( boolean back ) {
+					group.translateBasedOnDisplacementOfOnePoint( back ? A_new : A_old, back ? A_old : A_new );
+				}
+			},
+			new Check( "ShapeGroup.transformBasedOnDisplacementOfTwoPoints" ) {
+				void run( boolean back ) {
+					if ( back )
+						group.transformBasedOnDisplacementOfTwoPoints( A_new, B_new, A_old, B_old );
+					else
+						group.transformBasedOnDisplacementOfTwoPoints( A_old, B_old, A_new, B_new );
+				}
+			},
+			new Check( "GraphicsWrapper.convertPixelsToWorldSpaceUnits (output)" ) {
+				void run( boolean back ) {
+					gw.convertPixelsToWorldSpaceUnits( back ? A_old : A_new, result );
+				}
+			},
+			new Check( "GraphicsWrapper.panBasedOnDisplacementOfOnePoint" ) {
+				void run( boolean back ) {
+					gw.panBasedOnDisplacementOfOnePoint( back ? A_new : A_old, back ? A_old : A_new );
+				}
+			},
+			new Check( "GraphicsWrapper.panAndZoomBasedOnDisplacementOfTwoPoints" ) {
+				void run( boolean back ) {
+					if ( back )
+						gw.panAndZoomBasedOnDisplacementOfTwoPoints( A_new, B_new, A_old, B_old );
+					else
+						gw.panAndZoomBasedOnDisplacementOfTwoPoints( A_old, B_old, A_new, B_new );
+				}
+			},
+		};
+	}
+
+	// Returns the number of bytes allocated by the given check over the given number of calls.
+	static long measure( com.sun.management.ThreadMXBean threads, Check check, int numCalls ) {
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes( threadId );
+		for ( int i = 0; i < numCalls; ++i )
+			check.run( ( i & 1 ) != 0 );
+		return threads.getThreadAllocatedBytes( threadId ) - before;
+	}
+
+	public static void main( String [] args ) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		threads.setThreadAllocatedMemoryEnabled( true );
+
+		// The measurement itself may allocate a little; this is subtracted from every check.
+		Check empty = new Check( "empty" ) { void run( boolean back ) {} };
+		measure( threads, empty, NUM_WARMUP_CALLS );
+		long overhead = measure( threads, empty, NUM_MEASURED_CALLS );
+
+		Check [] checks = createChecks();
+		int numFailures = 0;
+		for ( int c = 0; c < checks.length; ++c ) {
+			measure( threads, checks[ c ], NUM_WARMUP_CALLS );
+			long bytes = Math.max( 0, measure( threads, checks[ c ], NUM_MEASURED_CALLS ) - overhead );
+			double bytesPerCall = (double)bytes / NUM_MEASURED_CALLS;
+			// Less than one byte per call cannot be an allocation made by the routine itself.
+			boolean isAllocating = bytesPerCall >= 1;
+			if ( isAllocating )
+				++ numFailures;
+			System.out.println( String.format( "%-5s %8.2f bytes/call  %s", isAllocating ? "FAIL" : "ok", bytesPerCall, checks[ c ].name ) );
+		}
+		if ( numFailures > 0 ) {
+			System.err.println( numFailures + " of " + checks.length + " routines allocate" );
+			System.exit( 1 );
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+// Benchmarks of the routines of Point2DUtil, on point sets and polygons of increasing size.
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class GeometryBenchmark {
+
+	@Param( { "10", "100", "1000", "10000", "100000", "1000000" } )
+	public int numPoints;
+
+	static final float SIZE = 1000;
+	static final int NUM_QUERIES = 1024;
+
+	// random points in a square, used as input for the hull, the PCA and the transformations
+	private ArrayList< Point2D > points;
+	private float [] coordinates;
+	private Point2D [] pointArray;
+	private int [] hullIndices;
+
+	// a polygon, used for the point-in-polygon test and the expansion
+	private ArrayList< Point2D > polygon;
+	private float [] polygonCoordinates;
+	private float [] queryCoordinates;
+	private int queryIndex = 0;
+
+	private Vector2D eigenvector1 = new Vector2D();
+	private Vector2D eigenvector2 = new Vector2D();
+	private double [] eigenvalues = new double[ 2 ];
+
+	// The transformations alternate between moving the points and moving them back,
+	// so that the points stay in the same region however many times the benchmark is run.
+	private Point2D A_old = new Point2D( 400, 500 ), B_old = new Point2D( 600, 500 );
+	private Point2D A_new = new Point2D( 410, 490 ), B_new = new Point2D( 620, 520 );
+	private boolean isMovingBack = false;
+
+	@Setup
+	public void setup() {
+		points = SceneGenerator.createPoints( numPoints, SIZE, 1 );
+		coordinates = SceneGenerator.pack( points );
+		pointArray = points.toArray( new Point2D[ numPoints ] );
+		hullIndices = new int[ numPoints + 1 ];
+
+		polygon = SceneGenerator.createPolygon( numPoints, SIZE/2, SIZE/2, SIZE/2, 2 );
+		polygonCoordinates = SceneGenerator.pack( polygon );
+		queryCoordinates = SceneGenerator.pack( SceneGenerator.createPoints( NUM_QUERIES, SIZE, 3 ) );
+	}
+
+	@Benchmark
+	public ArrayList< Point2D > computeConvexHull() {
+		return Point2DUtil.computeConvexHull( points );
+	}
+
+	@Benchmark
+	public int computeConvexHullPacked() {
+		return Point2DUtil.computeConvexHull( coordinates, numPoints, hullIndices );
+	}
+
+	@Benchmark
+	public boolean isPointInsidePolygon() {
+		queryIndex = ( queryIndex + 1 ) % NUM_QUERIES;
+		return Point2DUtil.isPointInsidePolygon(
+			polygonCoordinates, numPoints, queryCoordinates[ 2*queryIndex ], queryCoordinates[ 2*queryIndex+1 ]
+		);
+	}
+
+	@Benchmark
+	public ArrayList< Point2D > computeExpandedPolygon() {
+		return Point2DUtil.computeExpandedPolygon( polygon, 10 );
+	}
+
+	@Benchmark
+	public boolean principleComponentAnalysis() {
+		return Point2DUtil.principleComponentAnalysis( pointArray, eigenvector1, eigenvector2, eigenvalues );
+	}
+
+	@Benchmark
+	public ArrayList< Point2D > transformPointsBasedOnDisplacementOfOnePoint() {
+		isMovingBack = ! isMovingBack;
+		if ( isMovingBack )
+			Point2DUtil.transformPointsBasedOnDisplacementOfOnePoint( points, A_new, A_old );
+		else
+			Point2DUtil.transformPointsBasedOnDisplacementOfOnePoint( points, A_old, A_new );
+		return points;
+	}
+
+	@Benchmark
+	public float [] transformPointsBasedOnDisplacementOfTwoPoints() {
+		isMovingBack = ! isMovingBack;
+		if ( isMovingBack )
+			Point2DUtil.transformPointsBasedOnDisplacementOfTwoPoints( coordinates, numPoints, A_new, B_new, A_old, B_old );
+		else
+			Point2DUtil.transformPointsBasedOnDisplacementOfTwoPoints( coordinates, numPoints, A_old, B_old, A_new, B_new );
+		return coordinates;
+	}
+}
@@ -0,0 +1,71 @@
+package log350.example.example6;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+// Benchmarks of saving and loading scenes generated by SceneGenerator with SceneFile.
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx4g" )
+public class SceneFileBenchmark {
+
+	@Param( { "1000", "100000", "1000000" } )
+	public int numShapes;
+
+	private ShapeContainer container;
+	private File file;
+
+	@Setup
+	public void setup() throws IOException {
+		container = SceneGenerator.createScene( numShapes, 1 );
+		file = File.createTempFile( "scene", ".bin" );
+		SceneFile.save( container, file );
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	// Opening a scene only reads the table of shapes, not their points.
+	@Benchmark
+	public ShapeContainer open() throws IOException {
+		ShapeContainer loaded = new ShapeContainer();
+		SceneFile.open( file ).addShapesTo( loaded );
+		return loaded;
+	}
+
+	// Same as above, then decodes the points of every shape.
+	@Benchmark
+	public ShapeContainer openAndDecode() throws IOException {
+		ShapeContainer loaded = new ShapeContainer();
+		SceneFile.open( file ).addShapesTo( loaded );
+		for ( int i = 0; i < loaded.shapes.size(); ++i )
+			loaded.shapes.get( i ).getCoordinates();
+		return loaded;
+	}
+
+	@Benchmark
+	public File save() throws IOException {
+		SceneFile.save( container, file );
+		return file;
+	}
+}
@@ -0,0 +1,69 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+
+// Generates synthetic inputs for the benchmarks.
+// The same seed always gives the same input, so that results can be compared from one run to the next.
+class SceneGenerator {
+
+	// The shapes are spread over a square whose area grows with their number,
+	// so that the density of the scene (and the number of shapes under a point) stays the same at every size.
+	static final float AREA_PER_SHAPE = 100 * 100;
+	static final float SHAPE_SIZE = 40;
+	static final int NUM_POINTS_PER_SHAPE = 6;
+
+	public static float getSceneSize( int numShapes ) {
+		return (float)Math.sqrt( numShapes * AREA_PER_SHAPE );
+	}
+
+	// Returns a scene of small convex shapes, each one the convex hull of a few random points.
+	public static ShapeContainer createScene( int numShapes, long seed ) {
+		Random random = new Random( seed );
+		float sceneSize = getSceneSize( numShapes );
+		ShapeContainer container = new ShapeContainer();
+		ArrayList< Point2D > points = new ArrayList< Point2D >( NUM_POINTS_PER_SHAPE );
+		for ( int i = 0; i < numShapes; ++i ) {
+			float x0 = random.nextFloat() * sceneSize;
+			float y0 = random.nextFloat() * sceneSize;
+			points.clear();
+			for ( int j = 0; j < NUM_POINTS_PER_SHAPE; ++j )
+				points.add( new Point2D( x0 + random.nextFloat() * SHAPE_SIZE, y0 + random.nextFloat() * SHAPE_SIZE ) );
+			container.addShape( Point2DUtil.computeConvexHull( points ) );
+		}
+		return container;
+	}
+
+	// Returns points uniformly distributed in a square of the given size.
+	public static ArrayList< Point2D > createPoints( int numPoints, float size, long seed ) {
+		Random random = new Random( seed );
+		ArrayList< Point2D > points = new ArrayList< Point2D >( numPoints );
+		for ( int i = 0; i < numPoints; ++i )
+			points.add( new Point2D( random.nextFloat() * size, random.nextFloat() * size ) );
+		return points;
+	}
+
+	// Returns a simple (non self-intersecting) polygon, star-shaped around the given center,
+	// whose radius varies randomly between half the given radius and the given radius.
+	public static ArrayList< Point2D > createPolygon( int numPoints, float centerX, float centerY, float radius, long seed ) {
+		Random random = new Random( seed );
+		ArrayList< Point2D > points = new ArrayList< Point2D >( numPoints );
+		for ( int i = 0; i < numPoints; ++i ) {
+			double angle = 2 * Math.PI * i / numPoints;
+			float r = radius * ( 0.5f + 0.5f * random.nextFloat() );
+			points.add( new Point2D( centerX + r * (float)Math.cos( angle ), centerY + r * (float)Math.sin( angle ) ) );
+		}
+		return points;
+	}
+
+	// Packs the given points as x0, y0, x1, y1, ...
+	public static float [] pack( ArrayList< Point2D > points ) {
+		float [] coordinates = new float[ 2 * points.size() ];
+		for ( int i = 0; i < points.size(); ++i ) {
+			coordinates[ 2*i ] = points.get( i ).x();
+			coordinates[ 2*i+1 ] = points.get( i ).y();
+		}
+		return coordinates;
+	}
+}
@@ -0,0 +1,69 @@
+package log350.example.example6;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+// Benchmarks of the queries of ShapeContainer, on scenes of increasing size generated by SceneGenerator.
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx4g" )
+public class ShapeContainerBenchmark {
+
+	@Param( { "10", "100", "1000", "10000", "100000", "1000000" } )
+	public int numShapes;
+
+	static final int NUM_QUERIES = 1024;
+	// The lasso is a polygon of this many points, covering about this fraction of the scene's width.
+	static final int NUM_LASSO_POINTS = 200;
+	static final float LASSO_SIZE_AS_FRACTION_OF_SCENE = 0.1f;
+
+	private ShapeContainer container;
+	private Point2D [] queries;
+	private int queryIndex = 0;
+	private ArrayList< Point2D > lasso;
+	private ArrayList< Shape > selection = new ArrayList< Shape >();
+
+	@Setup
+	public void setup() {
+		container = SceneGenerator.createScene( numShapes, 1 );
+		float sceneSize = SceneGenerator.getSceneSize( numShapes );
+		queries = SceneGenerator.createPoints( NUM_QUERIES, sceneSize, 2 ).toArray( new Point2D[ NUM_QUERIES ] );
+		// a lasso around the center of the scene, large enough to contain a few shapes even in the smallest scenes
+		float radius = Math.max( sceneSize * LASSO_SIZE_AS_FRACTION_OF_SCENE, 4 * SceneGenerator.SHAPE_SIZE );
+		lasso = SceneGenerator.createPolygon( NUM_LASSO_POINTS, sceneSize/2, sceneSize/2, radius, 3 );
+	}
+
+	@Benchmark
+	public int indexOfShapeContainingGivenPoint() {
+		queryIndex = ( queryIndex + 1 ) % NUM_QUERIES;
+		return container.indexOfShapeContainingGivenPoint( queries[ queryIndex ] );
+	}
+
+	@Benchmark
+	public AlignedRectangle2D getBoundingRectangle() {
+		return container.getBoundingRectangle();
+	}
+
+	@Benchmark
+	public int getShapesContainedInLassoPolygon() {
+		selection.clear();
+		container.getShapesContainedInLassoPolygon( lasso, selection );
+		return selection.size();
+	}
+}
@@ -0,0 +1,265 @@
+package log350.example.example6;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+// Replays a touch trace recorded by the application (see TouchTrace) through a DrawingController,
+// drawing on a RecordingSurface, and reports how long the events and the frames took to process.
+//
+//    ./gradlew :benchmarks:replay -Ptrace=touch-1234.trace [-Prepetitions=10]
+//
+// The replay is deterministic: the controller's clock follows the times recorded in the trace,
+// and a requested frame is drawn at the first refresh of the display (a multiple of the refresh interval,
+// counted from the first event) that follows the request, before any event that arrives later.
+// So the same trace always leads to the same events, frames and final state,
+// and only the measured durations change from one run to the next.
+// The trace is replayed several times in the same virtual machine, so that the later repetitions
+// measure compiled code; the statistics of the last repetition are reported.
+public class TouchReplay {
+
+	// Used if the trace does not know the size of the window.
+	static final int DEFAULT_WINDOW_WIDTH = 1280, DEFAULT_WINDOW_HEIGHT = 800;
+
+	// Collects durations, in nanoseconds, and reports their distribution.
+	static class Durations {
+		private long [] values = new long[ 1024 ];
+		private int n = 0;
+
+		public void add( long value ) {
+			if ( n == values.length )
+				values = Arrays.copyOf( values, 2 * n );
+			values[ n ++ ] = value;
+		}
+
+		public int size() { return n; }
+
+		public long getTotal() {
+			long total = 0;
+			for ( int i = 0; i < n; ++i )
+				total += values[ i ];
+			return total;
+		}
+
+		// Returns a line such as "n=120 mean=12.3 p50=10.1 p95=30.4 p99=50.2 max=60.0", in microseconds.
+		public String summarize() {
+			if ( n == 0 )
+				return "n=0";
+			long [] sorted = Arrays.copyOf( values, n );
+			Arrays.sort( sorted );
+			return String.format(
+				"n=%d mean=%.1f p50=%.1f p95=%.1f p99=%.1f max=%.1f",
+				n, getTotal() / 1000.0 / n,
+				percentile( sorted, 0.50 ) / 1000.0, percentile( sorted, 0.95 ) / 1000.0,
+				percentile( sorted, 0.99 ) / 1000.0, sorted[ n - 1 ] / 1000.0
+			);
+		}
+
+		private static long percentile( long [] sorted, double fraction ) {
+			int index = (int)Math.ceil( fraction * sorted.length ) - 1;
+			return sorted[ Math.max( 0, Math.min( sorted.length - 1, index ) ) ];
+		}
+	}
+
+	// The time of the controller, set by the replay.
+	static class SimulatedClock implements FrameScheduler.Clock {
+		long time = 0;
+		public long nanoTime() { return time; }
+	}
+
+	// Remembers that a frame was requested, and when.
+	static class SimulatedHost implements FrameScheduler.Host {
+		SimulatedClock clock;
+		boolean isRedrawRequested = false;
+		long timeOfRequest = 0;
+		SimulatedHost( SimulatedClock clock ) { this.clock = clock; }
+		public void requestRedraw() {
+			isRedrawRequested = true;
+			timeOfRequest = clock.time;
+		}
+	}
+
+	// The results of one replay.
+	static class Results {
+		long wallClockTime;
+		Durations events = new Durations();
+		Durations [] eventsByAction = { new Durations(), new Durations(), new Durations() };
+		Durations frames = new Durations();
+		// handling time of an event, plus the drawing time of the first frame that shows its effect
+		Durations eventToFrame = new Durations();
+		int numFrames, numDroppedFrames, numCommands;
+		int numShapes;
+		long checksum;
+		// the timings collected by the controller itself, by mode and by phase of the frames
+		String performanceReport;
+	}
+
+	private byte [] trace;
+	private float framesPerSecond;
+
+	public TouchReplay( byte [] trace, float framesPerSecond ) {
+		this.trace = trace;
+		this.framesPerSecond = framesPerSecond;
+	}
+
+	public Results replay() throws IOException {
+		Results results = new Results();
+		TouchTrace.Reader reader = new TouchTrace.Reader( new ByteArrayInputStream( trace ) );
+		SimulatedClock clock = new SimulatedClock();
+		SimulatedHost host = new SimulatedHost( clock );
+		DrawingController controller = new DrawingController( host, clock );
+		controller.setDisplayRefreshRate( framesPerSecond );
+		long frameInterval = controller.frameScheduler.getFrameIntervalInNanoseconds();
+
+		int width = reader.getWindowWidth(), height = reader.getWindowHeight();
+		if ( width <= 0 || height <= 0 ) {
+			width = DEFAULT_WINDOW_WIDTH;
+			height = DEFAULT_WINDOW_HEIGHT;
+		}
+		RecordingSurface surface = new RecordingSurface( width, height );
+		reader.restoreSnapshot( controller );
+		// The first frame sets up the window; it is not part of the measurements.
+		controller.draw( surface );
+		controller.frameScheduler.resetStatistics();
+		controller.performanceMonitor.reset();
+		surface.resetStatistics();
+		host.isRedrawRequested = false;
+
+		TouchBatch batch = new TouchBatch();
+		long firstEventTime = -1;
+		// the handling times of the events received since the last frame
+		Durations eventsWaitingForFrame = new Durations();
+		long startTime = System.nanoTime();
+		while ( reader.read( batch ) ) {
+			long eventTime = batch.getSampleTime( batch.getNumSamples() - 1 ) * 1000000L;
+			if ( firstEventTime < 0 )
+				firstEventTime = eventTime;
+			if ( host.isRedrawRequested ) {
+				// the first refresh after the request
+				long refreshTime = firstEventTime
+					+ ( ( host.timeOfRequest - firstEventTime ) / frameInterval + 1 ) * frameInterval;
+				if ( refreshTime <= eventTime )
+					drawFrame( controller, surface, clock, host, refreshTime, eventsWaitingForFrame, results );
+			}
+			clock.time = eventTime;
+			long t0 = System.nanoTime();
+			controller.handleTouchBatch( batch );
+			long duration = System.nanoTime() - t0;
+			results.events.add( duration );
+			if ( batch.getAction() < results.eventsByAction.length )
+				results.eventsByAction[ batch.getAction() ].add( duration );
+			eventsWaitingForFrame.add( duration );
+		}
+		if ( host.isRedrawRequested ) {
+			long refreshTime = firstEventTime
+				+ ( ( host.timeOfRequest - firstEventTime ) / frameInterval + 1 ) * frameInterval;
+			drawFrame( controller, surface, clock, host, refreshTime, eventsWaitingForFrame, results );
+		}
+		results.wallClockTime = System.nanoTime() - startTime;
+		reader.close();
+
+		results.numFrames = controller.frameScheduler.getNumFrames();
+		results.numDroppedFrames = controller.frameScheduler.getNumDroppedFrames();
+		results.numCommands = surface.getNumCommands();
+		results.numShapes = controller.shapeContainer.shapes.size();
+		results.checksum = computeChecksum( controller );
+		results.performanceReport = controller.performanceMonitor.getReport();
+		return results;
+	}
+
+	private static void drawFrame(
+		DrawingController controller, RecordingSurface surface,
+		SimulatedClock clock, SimulatedHost host, long refreshTime,
+		Durations eventsWaitingForFrame, Results results
+	) {
+		host.isRedrawRequested = false;
+		clock.time = refreshTime;
+		long t0 = System.nanoTime();
+		controller.draw( surface );
+		long duration = System.nanoTime() - t0;
+		results.frames.add( duration );
+		for ( int i = 0; i < eventsWaitingForFrame.size(); ++i )
+			results.eventToFrame.add( eventsWaitingForFrame.values[ i ] + duration );
+		eventsWaitingForFrame.n = 0;
+	}
+
+	// Combines the coordinates of all the shapes, the selection and the camera into a single number,
+	// to check that two replays of the same trace end in the same state.
+	static long computeChecksum( DrawingController controller ) {
+		long checksum = 17;
+		ArrayList< Shape > shapes = controller.shapeContainer.shapes;
+		for ( int i = 0; i < shapes.size(); ++i ) {
+			Shape s = shapes.get( i );
+			float [] coordinates = s.getCoordinates();
+			checksum = 31 * checksum + s.getNumPoints();
+			for ( int j = 0; j < 2 * s.getNumPoints(); ++j )
+				checksum = 31 * checksum + Float.floatToIntBits( coordinates[ j ] );
+		}
+		for ( int i = 0; i < controller.selectedShapes.size(); ++i )
+			checksum = 31 * checksum + controller.selectedShapes.get( i ).indexInContainer;
+		checksum = 31 * checksum + Float.floatToIntBits( controller.gw.getOffsetXInPixels() );
+		checksum = 31 * checksum + Float.floatToIntBits( controller.gw.getOffsetYInPixels() );
+		checksum = 31 * checksum + Float.floatToIntBits( controller.gw.getScaleFactorInWorldSpaceUnitsPerPixel() );
+		return checksum;
+	}
+
+	static byte [] readFile( File file ) throws IOException {
+		byte [] bytes = new byte[ (int)file.length() ];
+		InputStream in = new FileInputStream( file );
+		try {
+			int offset = 0;
+			while ( offset < bytes.length ) {
+				int n = in.read( bytes, offset, bytes.length - offset );
+				if ( n < 0 )
+					throw new IOException( "unexpected end of " + file );
+				offset += n;
+			}
+		}
+		finally {
+			in.close();
+		}
+		return bytes;
+	}
+
+	public static void main( String [] args ) throws IOException {
+		if ( args.length < 1 ) {
+			System.err.println( "usage: TouchReplay <trace file> [repetitions] [frames per second]" );
+			System.exit( 1 );
+		}
+		File file = new File( args[ 0 ] );
+		int repetitions = args.length > 1 ? Integer.parseInt( args[ 1 ] ) : 5;
+		float framesPerSecond = args.length > 2 ? Float.parseFloat( args[ 2 ] ) : 60;
+
+		TouchReplay replay = new TouchReplay( readFile( file ), framesPerSecond );
+		Results results = null;
+		for ( int r = 0; r < repetitions; ++r ) {
+			Results previous = results;
+			results = replay.replay();
+			if ( previous != null && previous.checksum != results.checksum ) {
+				System.err.println( "replay is not deterministic: the final state differs between repetitions" );
+				System.exit( 2 );
+			}
+		}
+
+		System.out.println( "trace:             " + file + " (" + file.length() + " bytes)" );
+		System.out.println( "repetitions:       " + repetitions + ", statistics of the last one, in microseconds" );
+		System.out.println( String.format( "wall-clock time:   %.1f ms", results.wallClockTime / 1000000.0 ) );
+		System.out.println( "events:            " + results.events.summarize() );
+		System.out.println( "  down:            " + results.eventsByAction[ TouchBatch.ACTION_DOWN ].summarize() );
+		System.out.println( "  move:            " + results.eventsByAction[ TouchBatch.ACTION_MOVE ].summarize() );
+		System.out.println( "  up:              " + results.eventsByAction[ TouchBatch.ACTION_UP ].summarize() );
+		System.out.println( "frames:            " + results.frames.summarize() );
+		System.out.println( "event to frame:    " + results.eventToFrame.summarize() );
+		System.out.println( "frames drawn:      " + results.numFrames + " (" + results.numDroppedFrames + " dropped), "
+			+ results.numCommands + " drawing commands" );
+		System.out.println( "final state:       " + results.numShapes + " shapes, checksum "
+			+ Long.toHexString( results.checksum ) );
+		System.out.println();
+		System.out.print( results.performanceReport );
+	}
+}